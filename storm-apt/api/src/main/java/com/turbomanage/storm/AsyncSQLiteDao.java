@@ -0,0 +1,315 @@
+/*******************************************************************************
+ * Copyright 2012 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.turbomanage.storm;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.turbomanage.storm.query.Query;
+
+/**
+ * Runs the operations of a {@link SQLiteDao} off the calling thread.
+ * Writes run in submission order on the database's single writer
+ * thread and reads on its bounded reader pool, as provided by
+ * {@link DatabaseHelper#getWriteExecutor()} and
+ * {@link DatabaseHelper#getReadExecutor()}. A read submitted after a
+ * write may run before the write completes; chain them through the
+ * returned {@link Future} or a {@link Callback} when order matters.
+ *
+ * Each method returns a Future, and optionally delivers the result to
+ * a Callback on the main thread. Cancelling the Future before its work
+ * starts keeps it from running, and cancel(true) interrupts work in
+ * progress.
+ *
+ * @author David M. Chandler
+ *
+ * @param <T> Entity type
+ */
+public class AsyncSQLiteDao<T> {
+
+	private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+	private final SQLiteDao<T> dao;
+	private final DatabaseHelper dbHelper;
+
+	/**
+	 * @param ctx Context
+	 * @param dao DAO whose operations will be run asynchronously
+	 */
+	public AsyncSQLiteDao(Context ctx, SQLiteDao<T> dao) {
+		this.dao = dao;
+		this.dbHelper = dao.getDbHelper(ctx);
+	}
+
+	public SQLiteDao<T> getDao() {
+		return dao;
+	}
+
+	/**
+	 * Runs any read-only work on the reader pool.
+	 *
+	 * @param task
+	 * @param callback may be null
+	 * @return Future result
+	 */
+	public <R> Future<R> read(Callable<R> task, Callback<R> callback) {
+		return submit(dbHelper.getReadExecutor(), task, callback);
+	}
+
+	public <R> Future<R> read(Callable<R> task) {
+		return read(task, null);
+	}
+
+	/**
+	 * Runs any work which writes to the database on the writer thread.
+	 *
+	 * @param task
+	 * @param callback may be null
+	 * @return Future result
+	 */
+	public <R> Future<R> write(Callable<R> task, Callback<R> callback) {
+		return submit(dbHelper.getWriteExecutor(), task, callback);
+	}
+
+	public <R> Future<R> write(Callable<R> task) {
+		return write(task, null);
+	}
+
+	/*
+	 * Reads
+	 */
+
+	public Future<T> get(final Long id, Callback<T> callback) {
+		return read(new Callable<T>() {
+			@Override
+			public T call() {
+				return dao.get(id);
+			}
+		}, callback);
+	}
+
+	public Future<T> get(Long id) {
+		return get(id, null);
+	}
+
+	public Future<List<T>> getAll(final Collection<Long> ids, Callback<List<T>> callback) {
+		return read(new Callable<List<T>>() {
+			@Override
+			public List<T> call() {
+				return dao.getAll(ids);
+			}
+		}, callback);
+	}
+
+	public Future<List<T>> getAll(Collection<Long> ids) {
+		return getAll(ids, null);
+	}
+
+	public Future<List<T>> listAll(Callback<List<T>> callback) {
+		return read(new Callable<List<T>>() {
+			@Override
+			public List<T> call() {
+				return dao.listAll();
+			}
+		}, callback);
+	}
+
+	public Future<List<T>> listAll() {
+		return listAll(null);
+	}
+
+	/**
+	 * Executes a query built by {@link SQLiteDao#load()}.
+	 *
+	 * @param query
+	 * @param callback may be null
+	 * @return Future list of matching entities
+	 */
+	public Future<List<T>> list(final Query<T> query, Callback<List<T>> callback) {
+		return read(new Callable<List<T>>() {
+			@Override
+			public List<T> call() {
+				return query.list();
+			}
+		}, callback);
+	}
+
+	public Future<List<T>> list(Query<T> query) {
+		return list(query, null);
+	}
+
+	public Future<Long> count(final Query<T> query, Callback<Long> callback) {
+		return read(new Callable<Long>() {
+			@Override
+			public Long call() {
+				return query.count();
+			}
+		}, callback);
+	}
+
+	public Future<Long> count(Query<T> query) {
+		return count(query, null);
+	}
+
+	/*
+	 * Writes
+	 */
+
+	public Future<Long> insert(final T obj, Callback<Long> callback) {
+		return write(new Callable<Long>() {
+			@Override
+			public Long call() {
+				return dao.insert(obj);
+			}
+		}, callback);
+	}
+
+	public Future<Long> insert(T obj) {
+		return insert(obj, null);
+	}
+
+	public Future<Long> insertMany(final Iterable<T> many, Callback<Long> callback) {
+		return write(new Callable<Long>() {
+			@Override
+			public Long call() {
+				return dao.insertMany(many);
+			}
+		}, callback);
+	}
+
+	public Future<Long> insertMany(Iterable<T> many) {
+		return insertMany(many, null);
+	}
+
+	public Future<Long> update(final T obj, Callback<Long> callback) {
+		return write(new Callable<Long>() {
+			@Override
+			public Long call() {
+				return dao.update(obj);
+			}
+		}, callback);
+	}
+
+	public Future<Long> update(T obj) {
+		return update(obj, null);
+	}
+
+	public Future<Long> upsert(final T obj, Callback<Long> callback) {
+		return write(new Callable<Long>() {
+			@Override
+			public Long call() {
+				return dao.upsert(obj);
+			}
+		}, callback);
+	}
+
+	public Future<Long> upsert(T obj) {
+		return upsert(obj, null);
+	}
+
+	public Future<Long> upsertMany(final Iterable<T> many, Callback<Long> callback) {
+		return write(new Callable<Long>() {
+			@Override
+			public Long call() {
+				return dao.upsertMany(many);
+			}
+		}, callback);
+	}
+
+	public Future<Long> upsertMany(Iterable<T> many) {
+		return upsertMany(many, null);
+	}
+
+	public Future<Integer> delete(final Long id, Callback<Integer> callback) {
+		return write(new Callable<Integer>() {
+			@Override
+			public Integer call() {
+				return dao.delete(id);
+			}
+		}, callback);
+	}
+
+	public Future<Integer> delete(Long id) {
+		return delete(id, null);
+	}
+
+	public Future<Integer> deleteAll(Callback<Integer> callback) {
+		return write(new Callable<Integer>() {
+			@Override
+			public Integer call() {
+				return dao.deleteAll();
+			}
+		}, callback);
+	}
+
+	public Future<Integer> deleteAll() {
+		return deleteAll(null);
+	}
+
+	private static <R> Future<R> submit(ExecutorService executor, Callable<R> task, Callback<R> callback) {
+		CallbackTask<R> future = new CallbackTask<R>(task, callback);
+		executor.execute(future);
+		return future;
+	}
+
+	/**
+	 * Posts the outcome to the Callback, if any, when the task is done.
+	 */
+	private static class CallbackTask<R> extends FutureTask<R> {
+
+		private final Callback<R> callback;
+
+		CallbackTask(Callable<R> task, Callback<R> callback) {
+			super(task);
+			this.callback = callback;
+		}
+
+		@Override
+		protected void done() {
+			if (callback == null || isCancelled()) {
+				return;
+			}
+			try {
+				final R result = get();
+				MAIN_HANDLER.post(new Runnable() {
+					@Override
+					public void run() {
+						callback.onSuccess(result);
+					}
+				});
+			} catch (final ExecutionException e) {
+				MAIN_HANDLER.post(new Runnable() {
+					@Override
+					public void run() {
+						callback.onFailure(e.getCause());
+					}
+				});
+			} catch (InterruptedException e) {
+				// not reached, as the task is done
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Copyright 2012 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.turbomanage.storm;
+
+/**
+ * Receives the result of an operation submitted to {@link AsyncSQLiteDao}.
+ * Methods are called on the main thread. Neither is called if the
+ * operation was cancelled.
+ *
+ * @author David M. Chandler
+ *
+ * @param <R> Result type
+ */
+public interface Callback<R> {
+
+	void onSuccess(R result);
+
+	void onFailure(Throwable t);
+
+}
@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright 2012 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.turbomanage.storm;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * An {@link Iterator} over query results which holds an open
+ * {@link android.database.Cursor}. The Cursor is closed automatically
+ * when iteration reaches the end; callers that stop early MUST call
+ * {@link #close()}.
+ *
+ * For convenience in for-each loops, {@link #iterator()} returns
+ * this instance, so the results may be iterated only once.
+ *
+ * @author David M. Chandler
+ *
+ * @param <T> Entity type
+ */
+public interface CloseableIterator<T> extends Iterator<T>, Iterable<T>, Closeable {
+
+	/**
+	 * Closes the underlying Cursor. Safe to call more than once.
+	 */
+	@Override
+	void close();
+
+}
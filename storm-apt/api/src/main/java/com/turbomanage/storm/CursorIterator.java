@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright 2012 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.turbomanage.storm;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import android.database.Cursor;
+
+/**
+ * Maps each row of a {@link Cursor} to an entity only when it is
+ * requested, so that iterating a large result never holds more than
+ * the CursorWindow and the current entity in memory.
+ *
+ * @author David M. Chandler
+ *
+ * @param <T> Entity type
+ */
+public class CursorIterator<T> implements CloseableIterator<T> {
+
+	private final Cursor c;
+	private final TableHelper<T> th;
+	private final int[] cols;
+	private final T reusable;
+	private boolean hasNext;
+
+	/**
+	 * Constructor takes ownership of the {@link Cursor}. If reusable is
+	 * not null, every call to {@link #next()} populates and returns that
+	 * same instance (flyweight), so callers must copy anything they need
+	 * to keep before advancing.
+	 *
+	 * @param c Cursor positioned before the first row
+	 * @param th TableHelper for the entity
+	 * @param reusable Instance to populate for every row, or null to create new instances
+	 */
+	public CursorIterator(Cursor c, TableHelper<T> th, T reusable) {
+		this.c = c;
+		this.th = th;
+		this.reusable = reusable;
+		this.cols = th.getColumnIndexes(c);
+		this.hasNext = c.moveToFirst();
+		if (!hasNext) {
+			close();
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		return hasNext;
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext) {
+			throw new NoSuchElementException();
+		}
+		T obj = (reusable == null) ? th.newInstance(c, cols) : th.populate(reusable, c, cols);
+		hasNext = c.moveToNext();
+		if (!hasNext) {
+			close();
+		}
+		return obj;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return this;
+	}
+
+	@Override
+	public void close() {
+		hasNext = false;
+		if (!c.isClosed()) {
+			c.close();
+		}
+	}
+
+}
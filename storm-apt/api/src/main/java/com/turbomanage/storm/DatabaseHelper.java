@@ -15,14 +15,36 @@
  ******************************************************************************/
 package com.turbomanage.storm;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import android.content.Context;
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteDatabase.CursorFactory;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.database.sqlite.SQLiteTransactionListener;
+import android.os.Build;
+import android.util.Log;
 
 import com.turbomanage.storm.DatabaseHelper.UpgradeStrategy;
 import com.turbomanage.storm.api.Database;
 import com.turbomanage.storm.api.DatabaseFactory;
+import com.turbomanage.storm.binary.BinaryTableReader;
+import com.turbomanage.storm.exception.TransactionFailedException;
 
 /**
  * Default implementation of the SQLiteOpenHelper. Projects should extend this
@@ -44,16 +66,184 @@ public abstract class DatabaseHelper extends SQLiteOpenHelper {
 		 */
 		BACKUP_RESTORE,
 		/**
-		 * Custom upgrade strategy implemented by overriding
-		 * {@link DatabaseHelper#getUpgradeStrategy()}.
+		 * Like {@link #BACKUP_RESTORE}, but using binary snapshots which
+		 * copy values without converting them to Strings. Use for large
+		 * databases.
+		 */
+		BINARY_BACKUP_RESTORE,
+		/**
+		 * Rename each table, recreate it, and copy the rows of the old
+		 * table into it with INSERT ... SELECT. No files are written,
+		 * and the whole upgrade runs in one transaction.
+		 */
+		TABLE_COPY,
+		/**
+		 * Run the ALTER TABLE statements generated for each version step
+		 * and {@link TableHelper#upgradeSql(int, int)}. Override
+		 * {@link DatabaseHelper#upgrade(SQLiteDatabase, int, int)} for a
+		 * custom upgrade strategy.
 		 */
 		UPGRADE
 	}
 
+	/**
+	 * SQLite journal modes. See <a href="http://www.sqlite.org/pragma.html#pragma_journal_mode">PRAGMA journal_mode</a>.
+	 */
+	public enum JournalMode {
+		/**
+		 * Leave the platform default in place.
+		 */
+		DEFAULT,
+		DELETE,
+		TRUNCATE,
+		PERSIST,
+		MEMORY,
+		/**
+		 * Write-ahead logging. Readers don't block the writer and the
+		 * writer doesn't block readers. Requires API 11; ignored on
+		 * older platforms.
+		 */
+		WAL,
+		OFF
+	}
+
+	/**
+	 * SQLite synchronous levels. See <a href="http://www.sqlite.org/pragma.html#pragma_synchronous">PRAGMA synchronous</a>.
+	 */
+	public enum Synchronous {
+		/**
+		 * Leave the platform default in place.
+		 */
+		DEFAULT,
+		OFF,
+		/**
+		 * Safe from corruption in WAL mode, but a commit may be
+		 * rolled back following power loss.
+		 */
+		NORMAL,
+		FULL
+	}
+
+	/**
+	 * Statements compiled by one thread against one {@link SQLiteDatabase},
+	 * least recently used first. The least recently used statement is
+	 * closed when the cache is full.
+	 */
+	private static class StatementCache extends LinkedHashMap<String, SQLiteStatement> {
+		private static final long serialVersionUID = 1L;
+		private SQLiteDatabase db;
+
+		StatementCache() {
+			super(16, 0.75f, true);
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, SQLiteStatement> eldest) {
+			if (size() > MAX_CACHED_STATEMENTS) {
+				eldest.getValue().close();
+				return true;
+			}
+			return false;
+		}
+
+		void closeAll() {
+			for (SQLiteStatement stmt : values()) {
+				stmt.close();
+			}
+			clear();
+		}
+	}
+
+	/**
+	 * Statements cached by each thread. Enough for the insert, upsert
+	 * and common aggregate statements of several tables.
+	 */
+	private static final int MAX_CACHED_STATEMENTS = 32;
+
+	private static final String TAG = DatabaseHelper.class.getName();
+	private static final String SAVEPOINT = "storm_savepoint";
 	private DatabaseFactory dbFactory;
 
 	protected Context mContext;
 
+	private ExecutorService mWriteExecutor;
+	private ExecutorService mReadExecutor;
+
+	private final CopyOnWriteArrayList<TableChangeListener> mTableChangeListeners = new CopyOnWriteArrayList<TableChangeListener>();
+
+	/**
+	 * Tables changed by this thread's current transaction.
+	 */
+	private final ThreadLocal<Set<String>> mPendingChanges = new ThreadLocal<Set<String>>() {
+		@Override
+		protected Set<String> initialValue() {
+			return new HashSet<String>();
+		}
+	};
+
+	/**
+	 * Copies of {@link #mPendingChanges} taken at each open savepoint,
+	 * innermost last, so that rolling back to a savepoint also forgets
+	 * the tables changed since.
+	 */
+	private final ThreadLocal<LinkedList<Set<String>>> mSavepointChanges = new ThreadLocal<LinkedList<Set<String>>>() {
+		@Override
+		protected LinkedList<Set<String>> initialValue() {
+			return new LinkedList<Set<String>>();
+		}
+	};
+
+	/**
+	 * Number of transactions this thread has open through
+	 * {@link #beginTransaction(SQLiteDatabase)}.
+	 */
+	private final ThreadLocal<Integer> mTransactionDepth = new ThreadLocal<Integer>() {
+		@Override
+		protected Integer initialValue() {
+			return 0;
+		}
+	};
+
+	/**
+	 * Entity caches written by this thread's current transaction.
+	 */
+	private final ThreadLocal<Set<EntityCache<?>>> mCachesToClear = new ThreadLocal<Set<EntityCache<?>>>() {
+		@Override
+		protected Set<EntityCache<?>> initialValue() {
+			return new HashSet<EntityCache<?>>();
+		}
+	};
+
+	/**
+	 * Outcome of the transaction most recently ended by this thread.
+	 */
+	private final ThreadLocal<Boolean> mCommitted = new ThreadLocal<Boolean>();
+
+	private final SQLiteTransactionListener mTransactionListener = new SQLiteTransactionListener() {
+		@Override
+		public void onBegin() {
+		}
+
+		@Override
+		public void onCommit() {
+			mCommitted.set(Boolean.TRUE);
+		}
+
+		@Override
+		public void onRollback() {
+			mCommitted.set(Boolean.FALSE);
+			// a failed nested transaction rolls back the outermost too
+			mPendingChanges.get().clear();
+		}
+	};
+
+	private final ThreadLocal<StatementCache> mStatementCache = new ThreadLocal<StatementCache>() {
+		@Override
+		protected StatementCache initialValue() {
+			return new StatementCache();
+		}
+	};
+
 	/**
 	 * The constructor that should be overridden. Simply invoke
 	 * the super constructor.
@@ -109,6 +299,78 @@ public abstract class DatabaseHelper extends SQLiteOpenHelper {
 		return getDbFactory().getTableHelpers();
 	}
 
+	/**
+	 * Applies the journal mode and synchronous level declared in
+	 * &#64;Database. With {@link JournalMode#WAL}, the framework keeps a
+	 * pool of connections so that queries from other threads run
+	 * concurrently with the single writer.
+	 *
+	 * @see android.database.sqlite.SQLiteOpenHelper#onConfigure(android.database.sqlite.SQLiteDatabase)
+	 */
+	@Override
+	public void onConfigure(SQLiteDatabase db) {
+		configure(db);
+	}
+
+	/**
+	 * Before API 16, {@link #onConfigure(SQLiteDatabase)} is never
+	 * called, so the settings are applied here instead, after any
+	 * create or upgrade.
+	 *
+	 * @see android.database.sqlite.SQLiteOpenHelper#onOpen(android.database.sqlite.SQLiteDatabase)
+	 */
+	@Override
+	public void onOpen(SQLiteDatabase db) {
+		super.onOpen(db);
+		if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+			Log.i(TAG, "Applying journal mode and synchronous level on open for API "
+					+ Build.VERSION.SDK_INT);
+			configure(db);
+		}
+	}
+
+	private void configure(SQLiteDatabase db) {
+		JournalMode journalMode = getDbFactory().getJournalMode();
+		if (journalMode == JournalMode.WAL) {
+			if (!isWriteAheadLoggingSupported()) {
+				Log.w(TAG, "Write-ahead logging requires API 11; using the default journal for "
+						+ getDatabaseName());
+			} else if (!db.enableWriteAheadLogging()) {
+				Log.w(TAG, "Write-ahead logging not supported for " + getDatabaseName());
+			}
+		} else if (journalMode != JournalMode.DEFAULT) {
+			execPragma(db, "PRAGMA journal_mode=" + journalMode);
+		}
+		Synchronous synchronous = getDbFactory().getSynchronous();
+		if (synchronous != Synchronous.DEFAULT) {
+			execPragma(db, "PRAGMA synchronous=" + synchronous);
+		}
+	}
+
+	/**
+	 * {@link SQLiteDatabase#enableWriteAheadLogging()} was added in
+	 * API 11, and older platforms bundle a SQLite without WAL.
+	 */
+	private static boolean isWriteAheadLoggingSupported() {
+		return Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB;
+	}
+
+	/**
+	 * Runs a PRAGMA which may return a row. execSQL() rejects
+	 * statements that return rows.
+	 *
+	 * @param db
+	 * @param sql
+	 */
+	private void execPragma(SQLiteDatabase db, String sql) {
+		Cursor c = db.rawQuery(sql, null);
+		try {
+			c.moveToFirst();
+		} finally {
+			c.close();
+		}
+	}
+
 	/**
 	 * Calls {@link TableHelper#onCreate(SQLiteDatabase)} for each TableHelper.
 	 *
@@ -138,6 +400,12 @@ public abstract class DatabaseHelper extends SQLiteOpenHelper {
 		case BACKUP_RESTORE:
 			this.backupAndRestore(this.getContext(), db);
 			break;
+		case BINARY_BACKUP_RESTORE:
+			this.binaryBackupAndRestore(this.getContext(), db);
+			break;
+		case TABLE_COPY:
+			this.recreateAndCopy(db);
+			break;
 		case UPGRADE:
 			this.upgrade(db, oldVersion, newVersion);
 			break;
@@ -179,6 +447,40 @@ public abstract class DatabaseHelper extends SQLiteOpenHelper {
 		}
 	}
 
+	/**
+	 * Backs up all tables to binary snapshots, drops and recreates them,
+	 * then restores them from the snapshots. The snapshots are deleted
+	 * only after every table has been restored. If a restore fails, it
+	 * throws, so the enclosing upgrade transaction is rolled back and
+	 * the upgrade fails rather than leaving the tables empty.
+	 *
+	 * @param ctx
+	 * @param db
+	 */
+	public void binaryBackupAndRestore(Context ctx, SQLiteDatabase db) {
+		if (backupAllTablesToBinary(ctx, db, null)) {
+			dropAndCreate(db);
+			restoreAllTablesFromBinary(ctx, db, null);
+			for (TableHelper table : getTableHelpers()) {
+				new BinaryTableReader(table).deleteFile(ctx, db, null);
+			}
+		} else {
+			throw new RuntimeException("Backup of " + getDatabaseName() + " failed, aborting upgrade");
+		}
+	}
+
+	/**
+	 * Recreates all tables and copies the existing rows into them.
+	 * Must be called within a transaction, as from onUpgrade().
+	 *
+	 * @param db
+	 */
+	public void recreateAndCopy(SQLiteDatabase db) {
+		for (TableHelper th : getTableHelpers()) {
+			th.recreateAndCopy(db);
+		}
+	}
+
 	/**
 	 * Drops and recreates all tables.
 	 * @param db 
@@ -219,6 +521,380 @@ public abstract class DatabaseHelper extends SQLiteOpenHelper {
 		}
 	}
 
+	/**
+	 * Backup all tables to binary snapshots, one per table
+	 *
+	 * @param ctx
+	 * @param db
+	 * @param suffix Optional filename suffix, none if null
+	 *
+	 * @return True if all tables completed without errors
+	 */
+	public boolean backupAllTablesToBinary(Context ctx, SQLiteDatabase db, String suffix) {
+		boolean allSucceeded = true;
+		for (TableHelper table : getTableHelpers()) {
+			allSucceeded &= table.backupBinary(db, ctx, suffix);
+		}
+		return allSucceeded;
+	}
+
+	/**
+	 * Restore all tables from binary snapshots, one per table. Tables
+	 * without a snapshot are left empty. Throws if any snapshot can't
+	 * be restored.
+	 *
+	 * @param ctx
+	 * @param db
+	 * @param suffix Optional filename suffix, none if null
+	 */
+	public void restoreAllTablesFromBinary(Context ctx, SQLiteDatabase db, String suffix) {
+		for (TableHelper table : getTableHelpers()) {
+			table.restoreBinary(db, ctx, suffix);
+		}
+	}
+
+	/**
+	 * Runs the work in a transaction and returns its result. Every DAO
+	 * used by the work on the calling thread takes part in the
+	 * transaction, as the framework binds transactions to the thread,
+	 * so the work commits once and either completes entirely or is
+	 * rolled back if it throws.
+	 *
+	 * Calls may be nested. A nested call runs in a savepoint, so if it
+	 * throws, only its own work is rolled back and the caller may catch
+	 * the exception and continue. Note that this isn't true of nested
+	 * transactions begun with {@link SQLiteDatabase#beginTransaction()},
+	 * such as by {@link SQLiteDao#insertMany(Iterable)}: if one of those
+	 * fails, the outermost transaction is rolled back when it ends.
+	 *
+	 * @param work
+	 * @return result of the work
+	 * @throws TransactionFailedException wrapping any checked exception
+	 *         thrown by the work. Unchecked exceptions are rethrown as is.
+	 */
+	public <R> R runInTransaction(Callable<R> work) {
+		SQLiteDatabase db = getWritableDatabase();
+		boolean nested = db.inTransaction();
+		if (nested) {
+			savepoint(db);
+		} else {
+			beginTransaction(db);
+		}
+		try {
+			R result = work.call();
+			if (nested) {
+				releaseSavepoint(db);
+			} else {
+				db.setTransactionSuccessful();
+			}
+			return result;
+		} catch (Exception e) {
+			if (nested) {
+				rollbackToSavepoint(db);
+			}
+			// cached entities may have been rolled back
+			clearCaches();
+			if (e instanceof RuntimeException) {
+				throw (RuntimeException) e;
+			}
+			throw new TransactionFailedException(e);
+		} finally {
+			if (!nested) {
+				endTransaction(db);
+			}
+		}
+	}
+
+	/**
+	 * Begins a transaction whose rollback discards the table changes
+	 * recorded on this thread. Pair with {@link #endTransaction(SQLiteDatabase)}.
+	 *
+	 * @param db Writable database
+	 */
+	void beginTransaction(SQLiteDatabase db) {
+		db.beginTransactionWithListener(mTransactionListener);
+		mTransactionDepth.set(mTransactionDepth.get() + 1);
+	}
+
+	/**
+	 * Ends a transaction begun with {@link #beginTransaction(SQLiteDatabase)}
+	 * and, if it was the outermost, publishes the tables it changed.
+	 * If it was nested in a transaction begun directly on the
+	 * {@link SQLiteDatabase}, the changes are discarded instead, since
+	 * that transaction may yet roll back.
+	 * Returns false if the transaction was rolled back, which happens
+	 * without an exception when it wasn't marked successful or when a
+	 * transaction nested in it failed.
+	 *
+	 * @param db Writable database
+	 * @return true if committed
+	 */
+	boolean endTransaction(SQLiteDatabase db) {
+		mCommitted.remove();
+		int depth = mTransactionDepth.get() - 1;
+		mTransactionDepth.set(depth);
+		db.endTransaction();
+		boolean committed = Boolean.TRUE.equals(mCommitted.get());
+		if (depth == 0) {
+			Set<EntityCache<?>> caches = mCachesToClear.get();
+			for (EntityCache<?> cache : caches) {
+				cache.clear();
+			}
+			caches.clear();
+			mSavepointChanges.get().clear();
+			if (db.inTransaction()) {
+				mPendingChanges.get().clear();
+			} else {
+				publishTableChanges();
+			}
+		}
+		return committed;
+	}
+
+	/**
+	 * Clears the cache when this thread's outermost transaction ends.
+	 * Only transactions begun by Storm, as by
+	 * {@link #runInTransaction(Callable)}, are tracked.
+	 *
+	 * @param cache
+	 */
+	void clearAfterTransaction(EntityCache<?> cache) {
+		mCachesToClear.get().add(cache);
+	}
+
+	/**
+	 * Marks a point in the current transaction to which
+	 * {@link #rollbackToSavepoint(SQLiteDatabase)} can return.
+	 * Savepoints may be nested; SQLite matches savepoints of the
+	 * same name innermost first.
+	 *
+	 * @param db Writable database in a transaction
+	 */
+	void savepoint(SQLiteDatabase db) {
+		db.execSQL("SAVEPOINT " + SAVEPOINT);
+		mSavepointChanges.get().addLast(new HashSet<String>(mPendingChanges.get()));
+	}
+
+	void releaseSavepoint(SQLiteDatabase db) {
+		db.execSQL("RELEASE " + SAVEPOINT);
+		mSavepointChanges.get().pollLast();
+	}
+
+	/**
+	 * Undoes the work since the innermost savepoint and releases it,
+	 * leaving the enclosing transaction open. Tables changed since the
+	 * savepoint are no longer published unless changed again.
+	 *
+	 * @param db Writable database in a transaction
+	 */
+	void rollbackToSavepoint(SQLiteDatabase db) {
+		// execSQL routes every statement through
+		// DatabaseUtils.getSqlStatementType(). Through API 27 that
+		// classifies by the first three characters only, so a bare
+		// "ROLLBACK TO" would be taken for ROLLBACK and end the whole
+		// transaction. The leading comment makes the prefix "/* ",
+		// which classifies as STATEMENT_OTHER and reaches SQLite as
+		// written. Later releases also check for " TO " and return
+		// STATEMENT_OTHER themselves, including those that skip
+		// leading comments. If a framework release changes this
+		// again, TransactionTestCase.testNestedRollback will fail.
+		db.execSQL("/* savepoint */ ROLLBACK TO " + SAVEPOINT);
+		db.execSQL("RELEASE " + SAVEPOINT);
+		Set<String> snapshot = mSavepointChanges.get().pollLast();
+		if (snapshot != null) {
+			Set<String> pending = mPendingChanges.get();
+			pending.clear();
+			pending.addAll(snapshot);
+		}
+	}
+
+	/**
+	 * Registers a listener to be told which tables were written through
+	 * DAOs, once per committed transaction. Writes outside a transaction
+	 * are published immediately.
+	 *
+	 * @param listener
+	 */
+	public void addTableChangeListener(TableChangeListener listener) {
+		mTableChangeListeners.addIfAbsent(listener);
+	}
+
+	public void removeTableChangeListener(TableChangeListener listener) {
+		mTableChangeListeners.remove(listener);
+	}
+
+	/**
+	 * Records that a table changed. Inside a transaction, the change is
+	 * held until the outermost transaction commits, so that listeners
+	 * hear of each table once per transaction. DAOs call this for every
+	 * write; call it yourself after writing to a table with raw SQL.
+	 *
+	 * Transactions begun directly on {@link SQLiteDatabase} rather than
+	 * with {@link #runInTransaction(Callable)} are not tracked, because
+	 * Storm can't tell whether they commit. Changes made in them are not
+	 * published; call this again after such a transaction commits.
+	 *
+	 * @param tableName
+	 */
+	public void notifyTableChanged(String tableName) {
+		if (mTableChangeListeners.isEmpty()) {
+			return;
+		}
+		if (!getWritableDatabase().inTransaction()) {
+			mPendingChanges.get().add(tableName);
+			publishTableChanges();
+		} else if (mTransactionDepth.get() > 0) {
+			mPendingChanges.get().add(tableName);
+		}
+	}
+
+	private void publishTableChanges() {
+		Set<String> pending = mPendingChanges.get();
+		if (pending.isEmpty()) {
+			return;
+		}
+		Set<String> tableNames = Collections.unmodifiableSet(new HashSet<String>(pending));
+		pending.clear();
+		for (TableChangeListener listener : mTableChangeListeners) {
+			try {
+				listener.onTablesChanged(tableNames);
+			} catch (RuntimeException e) {
+				// the changes are already committed, so don't fail the write
+				Log.e(TAG, "TableChangeListener failed", e);
+			}
+		}
+	}
+
+	/**
+	 * Clears the entity cache of every table.
+	 */
+	void clearCaches() {
+		for (TableHelper<?> th : getTableHelpers()) {
+			EntityCache<?> cache = th.getCache();
+			if (cache != null) {
+				cache.clear();
+			}
+		}
+	}
+
+	/**
+	 * Returns the executor which runs asynchronous writes in order on
+	 * a single thread, so that writers never wait on each other for
+	 * the database lock.
+	 *
+	 * @return ExecutorService
+	 */
+	public synchronized ExecutorService getWriteExecutor() {
+		if (mWriteExecutor == null) {
+			mWriteExecutor = newExecutor(1, "storm-writer");
+		}
+		return mWriteExecutor;
+	}
+
+	/**
+	 * Returns the executor which runs asynchronous reads. With
+	 * {@link JournalMode#WAL}, it has one thread for each of the
+	 * readerConnections declared in &#64;Database. Otherwise, or where
+	 * the platform doesn't support WAL, all queries share one
+	 * connection, so it has a single thread.
+	 *
+	 * @return ExecutorService
+	 */
+	public synchronized ExecutorService getReadExecutor() {
+		if (mReadExecutor == null) {
+			DatabaseFactory factory = getDbFactory();
+			boolean wal = factory.getJournalMode() == JournalMode.WAL
+					&& isWriteAheadLoggingSupported();
+			int threads = wal ? Math.max(1, factory.getReaderConnections()) : 1;
+			mReadExecutor = newExecutor(threads, "storm-reader");
+		}
+		return mReadExecutor;
+	}
+
+	/**
+	 * Creates a writer which commits writes from any thread in batches
+	 * of up to maxBatchSize, waiting at most maxDelayMillis to fill a
+	 * batch. Many small writes then share the cost of each commit.
+	 *
+	 * @param maxBatchSize
+	 * @param maxDelayMillis
+	 * @return GroupCommitWriter
+	 */
+	public GroupCommitWriter newGroupCommitWriter(int maxBatchSize, long maxDelayMillis) {
+		return new GroupCommitWriter(this, maxBatchSize, maxDelayMillis);
+	}
+
+	/**
+	 * Creates a bounded pool of daemon threads which exit when idle,
+	 * releasing their cached statements.
+	 */
+	private ExecutorService newExecutor(int threads, final String name) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+				30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+				new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					@Override
+					public Thread newThread(final Runnable r) {
+						Runnable worker = new Runnable() {
+							@Override
+							public void run() {
+								try {
+									r.run();
+								} finally {
+									releaseCompiledStatements();
+								}
+							}
+						};
+						Thread t = new Thread(worker, name + "-" + count.incrementAndGet());
+						t.setDaemon(true);
+						return t;
+					}
+				});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * Returns a {@link SQLiteStatement} compiled from the given SQL, compiling
+	 * it only the first time it is requested. Statements are cached per thread
+	 * and therefore per connection session, so the caller may bind and execute
+	 * the statement without further synchronization. The cache is discarded if
+	 * the database has been reopened since the statement was compiled.
+	 *
+	 * Each thread keeps only the most recently used statements, closing
+	 * the others, so a statement remains valid only until the thread's
+	 * next call to this method. Threads which exit should call
+	 * {@link #releaseCompiledStatements()}; the executors' threads do so
+	 * themselves.
+	 *
+	 * @param db
+	 * @param sql
+	 * @return SQLiteStatement ready to bind
+	 */
+	public SQLiteStatement getCompiledStatement(SQLiteDatabase db, String sql) {
+		StatementCache cache = mStatementCache.get();
+		if (cache.db != db) {
+			cache.closeAll();
+			cache.db = db;
+		}
+		SQLiteStatement stmt = cache.get(sql);
+		if (stmt == null) {
+			stmt = db.compileStatement(sql);
+			cache.put(sql, stmt);
+		}
+		return stmt;
+	}
+
+	/**
+	 * Closes the statements cached by the calling thread.
+	 */
+	public void releaseCompiledStatements() {
+		StatementCache cache = mStatementCache.get();
+		cache.closeAll();
+		mStatementCache.remove();
+	}
+
 	/**
 	 * Returns the {@link DatabaseFactory} from which this instance
 	 * was obtained.
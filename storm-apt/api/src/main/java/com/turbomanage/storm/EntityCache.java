@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright 2012 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.turbomanage.storm;
+
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded, least-recently-used map of entities by ID. Entities
+ * may be held strongly or through soft or weak references so that the
+ * garbage collector can reclaim them under memory pressure.
+ *
+ * The cache returns the same instance on every hit, so an entity
+ * obtained from {@link SQLiteDao#get(Long)} and modified without
+ * calling {@link SQLiteDao#update(Object)} changes what later readers
+ * see. Writes through the {@link SQLiteDao} remove the entity rather
+ * than caching the caller's instance. The cache is not aware of writes
+ * made outside its SQLiteDao.
+ *
+ * @author David M. Chandler
+ *
+ * @param <T> Entity type
+ */
+public class EntityCache<T> {
+
+	public enum RefType {
+		STRONG,
+		/**
+		 * Cleared at the discretion of the garbage collector in
+		 * response to memory demand.
+		 */
+		SOFT,
+		/**
+		 * Cleared as soon as no one else holds the entity.
+		 */
+		WEAK
+	}
+
+	private final RefType refType;
+	private final Map<Long, Object> map;
+	private long hits, misses;
+	// incremented by every removal
+	private long version;
+
+	/**
+	 * @param maxSize max number of entities to hold
+	 * @param refType how to hold the entities
+	 */
+	public EntityCache(final int maxSize, RefType refType) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("maxSize must be positive");
+		}
+		this.refType = refType;
+		// access order for LRU
+		this.map = new LinkedHashMap<Long, Object>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Object> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cached entity or null if not present.
+	 *
+	 * @param id
+	 * @return entity or null
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized T get(long id) {
+		Object value = map.get(id);
+		if (value instanceof Reference) {
+			value = ((Reference<T>) value).get();
+			if (value == null) {
+				// reclaimed by GC
+				map.remove(id);
+			}
+		}
+		if (value == null) {
+			misses++;
+			return null;
+		}
+		hits++;
+		return (T) value;
+	}
+
+	public synchronized void put(long id, T obj) {
+		switch (refType) {
+		case SOFT:
+			map.put(id, new SoftReference<T>(obj));
+			break;
+		case WEAK:
+			map.put(id, new WeakReference<T>(obj));
+			break;
+		default:
+			map.put(id, obj);
+		}
+	}
+
+	/**
+	 * Puts the entity only if nothing has been removed since
+	 * {@link #getVersion()} returned the given version, so that a row
+	 * read before a concurrent write doesn't replace the write's
+	 * removal.
+	 *
+	 * @param id
+	 * @param obj
+	 * @param version from {@link #getVersion()} before the row was read
+	 */
+	public synchronized void putIfUnchanged(long id, T obj, long version) {
+		if (this.version == version) {
+			put(id, obj);
+		}
+	}
+
+	/**
+	 * @return count of removals so far
+	 */
+	public synchronized long getVersion() {
+		return version;
+	}
+
+	public synchronized void remove(long id) {
+		map.remove(id);
+		version++;
+	}
+
+	public synchronized void clear() {
+		map.clear();
+		version++;
+	}
+
+	/**
+	 * @return number of entries, including any reclaimed references
+	 */
+	public synchronized int size() {
+		return map.size();
+	}
+
+	public synchronized long getHitCount() {
+		return hits;
+	}
+
+	public synchronized long getMissCount() {
+		return misses;
+	}
+
+	public synchronized void resetStats() {
+		hits = 0;
+		misses = 0;
+	}
+
+}
@@ -0,0 +1,263 @@
+/*******************************************************************************
+ * Copyright 2012 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.turbomanage.storm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import com.turbomanage.storm.exception.TransactionFailedException;
+
+/**
+ * Collects small writes from any number of threads and commits them
+ * together, so that many writes share the cost of one journal sync.
+ * A batch is committed when it reaches maxBatchSize writes or when
+ * maxDelayMillis have passed since the batch was started, whichever
+ * comes first. Each write's Future completes only after its batch has
+ * been committed, with the write's result or the exception it threw.
+ *
+ * Batches run on the {@link DatabaseHelper#getWriteExecutor()} thread,
+ * so they are serialized with other asynchronous writes. Each write runs
+ * in its own savepoint, so a write which throws is undone entirely and
+ * doesn't affect the others in its batch. The exception is a write which
+ * opens its own transaction, such as {@link SQLiteDao#insertMany(Iterable)}:
+ * if it fails, SQLite rolls back the whole batch, and every write in the
+ * batch fails. Submit those directly instead.
+ *
+ * Obtain an instance from
+ * {@link DatabaseHelper#newGroupCommitWriter(int, long)}.
+ *
+ * @author David M. Chandler
+ */
+public class GroupCommitWriter {
+
+	private final DatabaseHelper dbHelper;
+	private final int maxBatchSize;
+	private final long maxDelayNanos;
+	private final BlockingQueue<PendingWrite<?>> queue = new LinkedBlockingQueue<PendingWrite<?>>();
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private final Runnable flushTask = new Runnable() {
+		@Override
+		public void run() {
+			try {
+				commit(nextBatch());
+			} finally {
+				scheduled.set(false);
+				scheduleIfPending();
+			}
+		}
+	};
+
+	GroupCommitWriter(DatabaseHelper dbHelper, int maxBatchSize, long maxDelayMillis) {
+		if (maxBatchSize < 1 || maxDelayMillis < 0) {
+			throw new IllegalArgumentException();
+		}
+		this.dbHelper = dbHelper;
+		this.maxBatchSize = maxBatchSize;
+		this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+	}
+
+	/**
+	 * Queues any write to be run in the next batch.
+	 *
+	 * @param write
+	 * @return Future which completes after the batch is committed
+	 */
+	public <R> Future<R> submit(Callable<R> write) {
+		PendingWrite<R> pending = new PendingWrite<R>(write);
+		queue.add(pending);
+		scheduleIfPending();
+		return pending;
+	}
+
+	public <T> Future<Long> insert(final SQLiteDao<T> dao, final T obj) {
+		return submit(new Callable<Long>() {
+			@Override
+			public Long call() {
+				return dao.insert(obj);
+			}
+		});
+	}
+
+	public <T> Future<Long> update(final SQLiteDao<T> dao, final T obj) {
+		return submit(new Callable<Long>() {
+			@Override
+			public Long call() {
+				return dao.update(obj);
+			}
+		});
+	}
+
+	public <T> Future<Long> upsert(final SQLiteDao<T> dao, final T obj) {
+		return submit(new Callable<Long>() {
+			@Override
+			public Long call() {
+				return dao.upsert(obj);
+			}
+		});
+	}
+
+	public <T> Future<Integer> delete(final SQLiteDao<T> dao, final Long id) {
+		return submit(new Callable<Integer>() {
+			@Override
+			public Integer call() {
+				return dao.delete(id);
+			}
+		});
+	}
+
+	private void scheduleIfPending() {
+		if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+			dbHelper.getWriteExecutor().execute(flushTask);
+		}
+	}
+
+	/**
+	 * Waits for up to maxBatchSize writes or until the delay has passed.
+	 */
+	private List<PendingWrite<?>> nextBatch() {
+		List<PendingWrite<?>> batch = new ArrayList<PendingWrite<?>>();
+		long deadline = System.nanoTime() + maxDelayNanos;
+		try {
+			while (batch.size() < maxBatchSize) {
+				long wait = Math.max(0, deadline - System.nanoTime());
+				PendingWrite<?> next = queue.poll(wait, TimeUnit.NANOSECONDS);
+				if (next == null) {
+					break;
+				}
+				batch.add(next);
+			}
+		} catch (InterruptedException e) {
+			// commit what we have
+			Thread.currentThread().interrupt();
+		}
+		return batch;
+	}
+
+	private void commit(List<PendingWrite<?>> batch) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		SQLiteDatabase db;
+		try {
+			db = dbHelper.getWritableDatabase();
+		} catch (RuntimeException e) {
+			failAll(batch, e);
+			return;
+		}
+		boolean committed = false;
+		dbHelper.beginTransaction(db);
+		try {
+			for (PendingWrite<?> write : batch) {
+				execute(db, write);
+			}
+			db.setTransactionSuccessful();
+		} catch (RuntimeException e) {
+			// the savepoint itself failed
+			failAll(batch, e);
+			return;
+		} finally {
+			try {
+				committed = dbHelper.endTransaction(db);
+			} catch (RuntimeException e) {
+				failAll(batch, e);
+				return;
+			}
+		}
+		if (committed) {
+			for (PendingWrite<?> write : batch) {
+				write.complete();
+			}
+		} else {
+			failAll(batch, new TransactionFailedException(
+					"Batch rolled back because a nested transaction failed"));
+		}
+	}
+
+	/**
+	 * Runs the write in a savepoint so that a write which fails
+	 * partway through leaves nothing behind.
+	 */
+	private void execute(SQLiteDatabase db, PendingWrite<?> write) {
+		if (write.isDone()) {
+			// cancelled
+			return;
+		}
+		dbHelper.savepoint(db);
+		if (write.execute()) {
+			dbHelper.releaseSavepoint(db);
+		} else {
+			dbHelper.rollbackToSavepoint(db);
+		}
+	}
+
+	private void failAll(List<PendingWrite<?>> batch, Throwable t) {
+		for (PendingWrite<?> write : batch) {
+			write.fail(t);
+		}
+		// cached entities may have been rolled back
+		dbHelper.clearCaches();
+	}
+
+	/**
+	 * A write whose result is held until its batch is committed.
+	 */
+	private static class PendingWrite<R> extends FutureTask<R> {
+
+		private final Callable<R> write;
+		private R result;
+		private Throwable error;
+
+		PendingWrite(Callable<R> write) {
+			super(write);
+			this.write = write;
+		}
+
+		/**
+		 * @return false if the write threw
+		 */
+		boolean execute() {
+			try {
+				result = write.call();
+				return true;
+			} catch (Throwable t) {
+				error = t;
+				return false;
+			}
+		}
+
+		void complete() {
+			if (error != null) {
+				setException(error);
+			} else {
+				set(result);
+			}
+		}
+
+		void fail(Throwable t) {
+			setException(t);
+		}
+	}
+
+}
@@ -16,16 +16,24 @@
 package com.turbomanage.storm;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import android.app.Activity;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.DatabaseUtils;
-import android.database.DatabaseUtils.InsertHelper;
+import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteQueryBuilder;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Build;
+import android.util.Log;
 
 import com.turbomanage.storm.api.DatabaseFactory;
 import com.turbomanage.storm.exception.TooManyResultsException;
@@ -45,6 +53,11 @@ import com.turbomanage.storm.query.Query;
 public abstract class SQLiteDao<T> {
 
 	private static final String TAG = SQLiteDao.class.getName();
+	/**
+	 * Max IDs per statement in {@link #getAllAsMap(Collection)}, within
+	 * SQLite's default limit of 999 parameters.
+	 */
+	public static final int MAX_IDS_PER_QUERY = 512;
 
 	private final Context mContext;
 	protected final TableHelper<T> th;
@@ -75,6 +88,16 @@ public abstract class SQLiteDao<T> {
 	 */
 	public abstract DatabaseHelper getDbHelper(Context ctx);
 
+	/**
+	 * Returns the {@link DatabaseHelper} for the Context with which
+	 * this DAO was constructed.
+	 *
+	 * @return DatabaseHelper
+	 */
+	public DatabaseHelper getDbHelper() {
+		return getDbHelper(mContext);
+	}
+
 	/**
 	 * Generated subclasses implement to provide the entity's
 	 * {@link TableHelper}.
@@ -93,7 +116,12 @@ public abstract class SQLiteDao<T> {
 	 */
 	public int delete(Long id) {
 		if (id != null) {
-			return getWritableDb().delete(th.getTableName(), th.getIdCol() + "=?", new String[]{id.toString()});
+			int numRowsDeleted = getWritableDb().delete(th.getTableName(), th.getIdCol() + "=?", new String[]{id.toString()});
+			uncache(id);
+			if (numRowsDeleted > 0) {
+				notifyTableChanged();
+			}
+			return numRowsDeleted;
 		}
 		return 0;
 	}
@@ -105,7 +133,12 @@ public abstract class SQLiteDao<T> {
 	 * @return count of rows deleted
 	 */
 	public int deleteAll() {
-		return getWritableDb().delete(th.getTableName(), null, null);
+		int numRowsDeleted = getWritableDb().delete(th.getTableName(), null, null);
+		uncacheAll();
+		if (numRowsDeleted > 0) {
+			notifyTableChanged();
+		}
+		return numRowsDeleted;
 	}
 
 	/**
@@ -122,13 +155,108 @@ public abstract class SQLiteDao<T> {
 	/**
 	 * Returns a single object by ID or null if no match found.
 	 * If more than one match is found, throws
-	 * {@link TooManyResultsException}.
+	 * {@link TooManyResultsException}. If the entity is cached,
+	 * returns the cached instance when present.
+	 *
+	 * A row read while this thread is in a transaction, or while a
+	 * write to the table was made on another thread, isn't cached,
+	 * as it may not match what is finally committed.
 	 *
 	 * @param id
 	 * @return One entity
 	 */
 	public T get(Long id) {
-		return load().eq(th.getIdCol(), id).get();
+		EntityCache<T> cache = th.getCache();
+		if (cache == null || id == null) {
+			return load().eq(th.getIdCol(), id).get();
+		}
+		T obj = cache.get(id);
+		if (obj == null) {
+			long version = cache.getVersion();
+			obj = load().eq(th.getIdCol(), id).get();
+			if (obj != null && !getReadableDb().inTransaction()) {
+				cache.putIfUnchanged(id, obj, version);
+			}
+		}
+		return obj;
+	}
+
+	/**
+	 * Returns the entities having the given IDs in the order of the
+	 * first occurrence of each ID. IDs with no matching row are skipped.
+	 *
+	 * @see #getAllAsMap(Collection)
+	 * @param ids
+	 * @return List of entities
+	 */
+	public List<T> getAll(Collection<Long> ids) {
+		return new ArrayList<T>(getAllAsMap(ids).values());
+	}
+
+	/**
+	 * Returns the entities having the given IDs keyed by ID, in the order
+	 * of the first occurrence of each ID. IDs with no matching row are
+	 * not in the map. Cached entities are returned from the cache, and
+	 * the others are fetched {@value #MAX_IDS_PER_QUERY} at a time with
+	 * an IN clause. Each batch is padded to a power of two by repeating
+	 * its last ID so that only a few distinct statements are prepared.
+	 *
+	 * @param ids
+	 * @return Map of ID to entity
+	 */
+	public Map<Long, T> getAllAsMap(Collection<Long> ids) {
+		EntityCache<T> cache = th.getCache();
+		long version = (cache != null) ? cache.getVersion() : 0;
+		boolean cacheable = (cache != null) && !getReadableDb().inTransaction();
+		Map<Long, T> found = new HashMap<Long, T>();
+		List<Long> misses = new ArrayList<Long>();
+		for (Long id : ids) {
+			if (id == null || found.containsKey(id)) {
+				continue;
+			}
+			T obj = (cache != null) ? cache.get(id) : null;
+			// null marks the ID as seen
+			found.put(id, obj);
+			if (obj == null) {
+				misses.add(id);
+			}
+		}
+		for (int start = 0; start < misses.size(); start += MAX_IDS_PER_QUERY) {
+			int n = Math.min(MAX_IDS_PER_QUERY, misses.size() - start);
+			int batchSize = Integer.highestOneBit(n);
+			if (batchSize < n) {
+				batchSize <<= 1;
+			}
+			Object[] params = new Object[batchSize];
+			for (int i = 0; i < batchSize; i++) {
+				params[i] = misses.get(start + Math.min(i, n - 1));
+			}
+			for (T obj : asList(rawQuery(getByIdsSql(batchSize), params))) {
+				long id = th.getId(obj);
+				found.put(id, obj);
+				if (cacheable) {
+					cache.putIfUnchanged(id, obj, version);
+				}
+			}
+		}
+		Map<Long, T> result = new LinkedHashMap<Long, T>();
+		for (Long id : ids) {
+			T obj = (id == null) ? null : found.get(id);
+			if (obj != null && !result.containsKey(id)) {
+				result.put(id, obj);
+			}
+		}
+		return result;
+	}
+
+	private String getByIdsSql(int numIds) {
+		StringBuilder sql = new StringBuilder("SELECT * FROM ")
+				.append(th.getTableName()).append(" WHERE ")
+				.append(th.getIdCol()).append(" IN (?");
+		for (int i = 1; i < numIds; i++) {
+			sql.append(",?");
+		}
+		return sql.append(")").toString();
 	}
 
 	/**
@@ -154,6 +282,16 @@ public abstract class SQLiteDao<T> {
 		return asList(queryAll());
 	}
 
+	/**
+	 * Returns all rows in the entity table as a {@link CloseableIterator}
+	 * which maps each row only when requested.
+	 *
+	 * @return CloseableIterator<T>
+	 */
+	public CloseableIterator<T> iterateAll() {
+		return asIterator(queryAll());
+	}
+
 	/**
 	 * Returns all entities matching an example object. Uses in the comparison
 	 * only those fields of the example object which are different than
@@ -171,51 +309,147 @@ public abstract class SQLiteDao<T> {
 	 * default long (0), the database generates an id and populates the
 	 * entity's ID field. Returns the generated ID or -1 if error.
 	 *
+	 * The entity is bound directly to a compiled INSERT statement which
+	 * is reused for subsequent inserts.
+	 *
 	 * @param obj An entity
 	 * @return ID of newly inserted row or -1 if err
 	 */
 	public long insert(T obj) {
-		ContentValues cv = th.getEditableValues(obj);
-		if (th.getId(obj) == 0) {
-			// the default, remove from ContentValues to allow autoincrement
-			cv.remove(th.getIdCol().toString());
-		}
-		long id = getWritableDb().insertOrThrow(th.getTableName(), null, cv);
+		SQLiteStatement stmt = getInsertStatement(getWritableDb());
+		th.bindInsert(stmt, obj);
+		long id = stmt.executeInsert();
 		th.setId(obj, id);
+		uncache(id);
+		notifyTableChanged();
 		return id;
 	}
 
 	/**
-	 * Efficiently insert a collection of entities using {@link InsertHelper}.
+	 * Efficiently insert a collection of entities in a single transaction.
+	 * Each entity is bound directly to the cached INSERT statement by
+	 * column index, and its ID field is populated with the generated ID.
+	 * If any insert fails, none of the entities are inserted.
 	 *
 	 * @param many Collection of objects
 	 * @return count of inserted objects or -1 immediately if any errors
 	 */
 	public long insertMany(Iterable<T> many) {
+		return insertMany(many, 0);
+	}
+
+	/**
+	 * Efficiently insert a collection of entities, committing every
+	 * chunkSize rows so that very large loads don't hold one huge
+	 * transaction. If an error occurs, the current chunk is rolled back
+	 * but rows in previously committed chunks remain in the table.
+	 *
+	 * @param many Collection of objects
+	 * @param chunkSize rows per transaction, or 0 to insert all in one transaction
+	 * @return count of inserted objects or -1 immediately if any errors
+	 */
+	public long insertMany(Iterable<T> many, int chunkSize) {
+		return executeInsertMany(many, chunkSize, th.insertSql());
+	}
+
+	private long executeInsertMany(Iterable<T> many, int chunkSize, String sql) {
 		long numInserted = 0;
-		InsertHelper insertHelper = new DatabaseUtils.InsertHelper(getWritableDb(), th.getTableName());
-		getWritableDb().beginTransaction();
+		boolean success = false;
+		boolean notified = false;
+		DatabaseHelper dbHelper = getDbHelper(mContext);
+		SQLiteDatabase db = getWritableDb();
+		SQLiteStatement stmt = dbHelper.getCompiledStatement(db, sql);
+		dbHelper.beginTransaction(db);
 		try {
 			for (T obj : many) {
-				ContentValues cv = th.getEditableValues(obj);
-				if (th.getId(obj) == 0) {
-					// the default, remove from ContentValues to allow autoincrement
-					cv.remove(th.getIdCol().toString());
-				}
-				long id = insertHelper.insert(cv);
-				if (id == -1)
+				th.bindInsert(stmt, obj);
+				long id;
+				try {
+					id = stmt.executeInsert();
+				} catch (SQLException e) {
+					// like InsertHelper, report the failure as -1; the
+					// current chunk is rolled back in finally
+					Log.e(TAG, "Error inserting into " + th.getTableName(), e);
 					return -1;
+				}
+				th.setId(obj, id);
+				uncache(id);
 				numInserted++;
+				if (!notified) {
+					// once per transaction is enough
+					notifyTableChanged();
+					notified = true;
+				}
+				if (chunkSize > 0 && numInserted % chunkSize == 0) {
+					db.setTransactionSuccessful();
+					dbHelper.endTransaction(db);
+					dbHelper.beginTransaction(db);
+					notified = false;
+				}
 			}
-			getWritableDb().setTransactionSuccessful();
+			db.setTransactionSuccessful();
+			success = true;
 		} finally {
-			getWritableDb().endTransaction();
+			dbHelper.endTransaction(db);
+			if (!success && th.getCache() != null) {
+				// cached entities may have been rolled back
+				th.getCache().clear();
+			}
 		}
 		return numInserted;
 	}
 
 	/**
-	 * Insert or update.
+	 * Inserts the entity, replacing any existing row with the same ID
+	 * or with the same value in any other UNIQUE column. An entity
+	 * with ID 0 is assigned a new ID. Use this to store entities whose
+	 * IDs were assigned elsewhere, such as by a server.
+	 *
+	 * This is an INSERT OR REPLACE, not an update: each conflicting row
+	 * is deleted before the new row is inserted. A row with a different
+	 * ID which conflicts on a unique &#64;Index is deleted too, so the
+	 * entity cache is cleared when the table has one. With foreign keys
+	 * enabled, the deletions also run the ON DELETE actions, such as
+	 * CASCADE, of rows which refer to them.
+	 *
+	 * @param obj An entity
+	 * @return ID of the row
+	 */
+	public long upsert(T obj) {
+		SQLiteStatement stmt = getDbHelper(mContext).getCompiledStatement(getWritableDb(), th.upsertSql());
+		th.bindInsert(stmt, obj);
+		long id = stmt.executeInsert();
+		th.setId(obj, id);
+		if (th.hasUniqueIndex()) {
+			// other rows may have been replaced
+			uncacheAll();
+		} else {
+			uncache(id);
+		}
+		notifyTableChanged();
+		return id;
+	}
+
+	/**
+	 * Efficiently upserts a collection of entities in a single
+	 * transaction using the cached INSERT OR REPLACE statement.
+	 *
+	 * @see #upsert(Object)
+	 * @param many Collection of objects
+	 * @return count of upserted objects or -1 immediately if any errors
+	 */
+	public long upsertMany(Iterable<T> many) {
+		long numUpserted = executeInsertMany(many, 0, th.upsertSql());
+		if (th.hasUniqueIndex()) {
+			// other rows may have been replaced
+			uncacheAll();
+		}
+		return numUpserted;
+	}
+
+	/**
+	 * Insert or update. Returns -1 if the entity has an ID but no
+	 * row has that ID; use {@link #upsert(Object)} to insert it.
 	 *
 	 * @param obj An entity
 	 * @return 0 if updated, -1 if err, else new ID
@@ -243,9 +477,62 @@ public abstract class SQLiteDao<T> {
 		Long id = th.getId(obj);
 		int numRowsUpdated = getWritableDb().update(th.getTableName(), cv, th.getIdCol()
 				+ "=?", new String[] { id.toString() });
+		uncache(id);
+		if (numRowsUpdated > 0) {
+			notifyTableChanged();
+		}
 		return numRowsUpdated;
 	}
 
+	/**
+	 * Removes the entity from the entity cache, if any, after a write.
+	 * Writes don't cache the caller's instance, which the caller may
+	 * go on to modify; the next {@link #get(Long)} reads the row.
+	 *
+	 * @param id
+	 */
+	protected void uncache(long id) {
+		EntityCache<T> cache = th.getCache();
+		if (cache != null) {
+			cache.remove(id);
+			uncacheAfterTransaction(cache);
+		}
+	}
+
+	/**
+	 * Clears the entity cache, if any, after a write which may have
+	 * changed any number of rows.
+	 */
+	protected void uncacheAll() {
+		EntityCache<T> cache = th.getCache();
+		if (cache != null) {
+			cache.clear();
+			uncacheAfterTransaction(cache);
+		}
+	}
+
+	/**
+	 * Until the transaction ends, other threads still read the old
+	 * rows and may cache them again, so the cache is cleared once
+	 * more when it ends.
+	 */
+	private void uncacheAfterTransaction(EntityCache<T> cache) {
+		DatabaseHelper dbHelper = getDbHelper(mContext);
+		if (dbHelper.getWritableDatabase().inTransaction()) {
+			dbHelper.clearAfterTransaction(cache);
+		}
+	}
+
+	/**
+	 * Returns the entity cache declared with &#64;Entity(cacheSize),
+	 * which exposes hit and miss counts.
+	 *
+	 * @return EntityCache or null if the entity is not cached
+	 */
+	public EntityCache<T> getCache() {
+		return th.getCache();
+	}
+
 	// TODO beware leaky abstractions--who owns the cursor?
 	/**
 	 * Convenience method queries the entity table using the provided
@@ -257,7 +544,7 @@ public abstract class SQLiteDao<T> {
 	 * @param params
 	 * @return Cursor
 	 */
-	public Cursor query(String where, String[] params) {
+	public Cursor query(String where, Object[] params) {
 		return query(where, params, null);
 	}
 
@@ -272,8 +559,147 @@ public abstract class SQLiteDao<T> {
 	 * @param orderBy
 	 * @return
 	 */
-	public Cursor query(String where, String[] params, String orderBy) {
-		return getReadableDb().query(th.getTableName(), null, where, params, null, null, orderBy);
+	public Cursor query(String where, Object[] params, String orderBy) {
+		return query(null, where, params, orderBy);
+	}
+
+	/**
+	 * Convenience method queries the entity table for only the named
+	 * columns using the provided WHERE clause and parameters and returns
+	 * a {@link Cursor}. Entities mapped from the Cursor have default
+	 * values for any fields not in the projection.
+	 *
+	 * The calling method MUST close the Cursor!
+	 *
+	 * @param columns projection, or null for all columns
+	 * @param where
+	 * @param params
+	 * @param orderBy
+	 * @return Cursor
+	 */
+	public Cursor query(String[] columns, String where, Object[] params, String orderBy) {
+		return query(columns, where, params, orderBy, null);
+	}
+
+	/**
+	 * Convenience method queries the entity table for only the named
+	 * columns using the provided WHERE clause, parameters, and LIMIT
+	 * clause and returns a {@link Cursor}. Parameters are bound with
+	 * their SQL types by {@link TypedCursorFactory}.
+	 *
+	 * The calling method MUST close the Cursor!
+	 *
+	 * @param columns projection, or null for all columns
+	 * @param where
+	 * @param params
+	 * @param orderBy
+	 * @param limit LIMIT clause such as "20 OFFSET 40", or null
+	 * @return Cursor
+	 */
+	public Cursor query(String[] columns, String where, Object[] params, String orderBy, String limit) {
+		String sql = SQLiteQueryBuilder.buildQueryString(false, th.getTableName(),
+				columns, where, null, null, orderBy, limit);
+		return rawQuery(sql, params);
+	}
+
+	/**
+	 * Runs a complete SELECT statement against the readable database.
+	 * Android caches the prepared statement per connection, so repeated
+	 * calls with the same SQL skip compilation.
+	 *
+	 * The calling method MUST close the Cursor!
+	 *
+	 * @param sql
+	 * @param params
+	 * @return Cursor
+	 */
+	public Cursor rawQuery(String sql, Object[] params) {
+		return getReadableDb().rawQueryWithFactory(new TypedCursorFactory(params), sql, null, th.getTableName());
+	}
+
+	/**
+	 * Executes an UPDATE or DELETE statement against the entity's table
+	 * and returns the number of rows affected. Since the affected rows
+	 * are not known, clears the entity cache.
+	 *
+	 * @param sql
+	 * @param params
+	 * @return count of rows affected
+	 */
+	public int executeUpdateDelete(String sql, Object[] params) {
+		// bulk statements vary too much to be worth caching
+		SQLiteDatabase db = getWritableDb();
+		SQLiteStatement stmt = db.compileStatement(sql);
+		try {
+			TypedCursorFactory.bindAll(stmt, params);
+			int numRows;
+			if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
+				numRows = stmt.executeUpdateDelete();
+			} else {
+				// executeUpdateDelete() is API 11; before that there is
+				// only one connection, so changes() sees this statement
+				stmt.execute();
+				numRows = (int) DatabaseUtils.longForQuery(db, "SELECT changes()", null);
+			}
+			if (numRows > 0) {
+				notifyTableChanged();
+			}
+			return numRows;
+		} finally {
+			stmt.close();
+			uncacheAll();
+		}
+	}
+
+	/**
+	 * Runs a statement which returns a single value, such as
+	 * SELECT COUNT(*), without creating a {@link Cursor}.
+	 *
+	 * @param sql single-row, single-column SELECT
+	 * @param params
+	 * @return long value of the first column of the first row
+	 */
+	public long queryForLong(String sql, Object[] params) {
+		SQLiteStatement stmt = getQueryStatement(sql, params);
+		try {
+			return stmt.simpleQueryForLong();
+		} finally {
+			stmt.close();
+		}
+	}
+
+	/**
+	 * Runs a statement which returns a single value without creating
+	 * a {@link Cursor}.
+	 *
+	 * @param sql single-row, single-column SELECT
+	 * @param params
+	 * @return String value of the first column of the first row, may be null
+	 */
+	public String queryForString(String sql, Object[] params) {
+		SQLiteStatement stmt = getQueryStatement(sql, params);
+		try {
+			return stmt.simpleQueryForString();
+		} finally {
+			stmt.close();
+		}
+	}
+
+	/**
+	 * Compiles a statement for a single execution. Aggregate SQL varies
+	 * with each WHERE clause, IN list and page, so these statements are
+	 * not worth a place in the statement cache; the framework's own
+	 * per-connection cache still avoids preparing repeated SQL twice.
+	 */
+	private SQLiteStatement getQueryStatement(String sql, Object[] params) {
+		SQLiteStatement stmt = getReadableDb().compileStatement(sql);
+		try {
+			TypedCursorFactory.bindAll(stmt, params);
+		} catch (RuntimeException e) {
+			stmt.close();
+			throw e;
+		}
+		return stmt;
 	}
 
 	/**
@@ -307,11 +733,23 @@ public abstract class SQLiteDao<T> {
 	 * @return List<T>
 	 */
 	public List<T> asList(Cursor c) {
-		// TODO consider returning Iterable<T> instead
+		return asList(c, th.getColumnIndexes(c));
+	}
+
+	/**
+	 * Converts all rows in a {@link Cursor} to a List of objects using
+	 * a known mapping of entity columns to Cursor columns.
+	 *
+	 * @param c Cursor
+	 * @param cols Cursor index of each column or -1, as returned by
+	 *        {@link TableHelper#getColumnIndexes(Cursor)}
+	 * @return List<T>
+	 */
+	public List<T> asList(Cursor c, int[] cols) {
 		try {
 			ArrayList<T> resultList = new ArrayList<T>();
 			for (boolean hasItem = c.moveToFirst(); hasItem; hasItem = c.moveToNext()) {
-				T obj = th.newInstance(c);
+				T obj = th.newInstance(c, cols);
 				resultList.add(obj);
 			}
 			return resultList;
@@ -320,6 +758,32 @@ public abstract class SQLiteDao<T> {
 		}
 	}
 
+	/**
+	 * Wraps a {@link Cursor} in an iterator which maps each row to a new
+	 * object only when requested. Unlike {@link #asList(Cursor)}, the
+	 * full result is never held in memory. The Cursor is closed when
+	 * iteration ends; callers that stop early MUST close the iterator.
+	 *
+	 * @param c Cursor
+	 * @return CloseableIterator<T>
+	 */
+	public CloseableIterator<T> asIterator(Cursor c) {
+		return asIterator(c, null);
+	}
+
+	/**
+	 * Wraps a {@link Cursor} in an iterator which populates and returns
+	 * the same reusable instance for every row. Use for scans that
+	 * consume each entity before advancing.
+	 *
+	 * @param c Cursor
+	 * @param reusable Instance to populate for every row, or null to create new instances
+	 * @return CloseableIterator<T>
+	 */
+	public CloseableIterator<T> asIterator(Cursor c, T reusable) {
+		return new CursorIterator<T>(c, th, reusable);
+	}
+
 	/**
 	 * Converts a {@link Cursor} to an object. If there is more than one
 	 * row in the Cursor, throws {@link TooManyResultsException}.
@@ -328,10 +792,23 @@ public abstract class SQLiteDao<T> {
 	 * @return An entity
 	 */
 	public T asObject(Cursor c) {
+		return asObject(c, th.getColumnIndexes(c));
+	}
+
+	/**
+	 * Converts a {@link Cursor} to an object using a known mapping of
+	 * entity columns to Cursor columns. If there is more than one row
+	 * in the Cursor, throws {@link TooManyResultsException}.
+	 *
+	 * @param c Cursor
+	 * @param cols Cursor index of each column or -1
+	 * @return An entity
+	 */
+	public T asObject(Cursor c, int[] cols) {
 		try {
 			if (c.getCount() == 1) {
 				c.moveToFirst();
-				return th.newInstance(c);
+				return th.newInstance(c, cols);
 			} else if (c.getCount() > 1) {
 				throw new TooManyResultsException("Cursor returned " + c.getCount() + " rows");
 			}
@@ -341,6 +818,24 @@ public abstract class SQLiteDao<T> {
 		}
 	}
 
+	/**
+	 * Obtains the cached INSERT statement for the entity's table.
+	 *
+	 * @param db Writable database
+	 * @return SQLiteStatement compiled from {@link TableHelper#insertSql()}
+	 */
+	protected SQLiteStatement getInsertStatement(SQLiteDatabase db) {
+		return getDbHelper(mContext).getCompiledStatement(db, th.insertSql());
+	}
+
+	/**
+	 * Tells listeners registered with the {@link DatabaseHelper}
+	 * that the entity's table changed.
+	 */
+	protected void notifyTableChanged() {
+		getDbHelper(mContext).notifyTableChanged(th.getTableName());
+	}
+
 	protected SQLiteDatabase getWritableDb() {
 		return getDbHelper(mContext).getWritableDatabase();
 	}
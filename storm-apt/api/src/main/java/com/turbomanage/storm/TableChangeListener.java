@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright 2012 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.turbomanage.storm;
+
+import java.util.Set;
+
+/**
+ * Receives the names of tables written through a DAO, once per
+ * committed transaction. Register with
+ * {@link DatabaseHelper#addTableChangeListener(TableChangeListener)}.
+ *
+ * @author David M. Chandler
+ */
+public interface TableChangeListener {
+
+	/**
+	 * Called on the thread which committed the changes, so
+	 * implementations should return quickly and post any UI
+	 * work to the main thread.
+	 *
+	 * @param tableNames unmodifiable set of changed tables
+	 */
+	void onTablesChanged(Set<String> tableNames);
+
+}
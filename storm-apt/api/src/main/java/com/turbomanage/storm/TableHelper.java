@@ -16,6 +16,9 @@
 package com.turbomanage.storm;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 import android.content.ContentValues;
 import android.content.Context;
@@ -23,8 +26,11 @@ import android.database.Cursor;
 import android.database.DatabaseUtils.InsertHelper;
 import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 
+import com.turbomanage.storm.binary.BinaryTableReader;
+import com.turbomanage.storm.binary.BinaryTableWriter;
 import com.turbomanage.storm.csv.CsvTableReader;
 import com.turbomanage.storm.csv.CsvTableWriter;
 import com.turbomanage.storm.query.Query;
@@ -88,6 +94,47 @@ public abstract class TableHelper<T> {
 	 */
 	protected abstract String createSql();
 
+	/**
+	 * @return CREATE INDEX statement for each declared index
+	 */
+	protected abstract String[] createIndexSql();
+
+	/**
+	 * @return name of each declared index in the same order as
+	 *         {@link #createIndexSql()}
+	 */
+	protected abstract String[] getIndexNames();
+
+	/**
+	 * @return INSERT statement with a ? for every column in declared order
+	 */
+	public abstract String insertSql();
+
+	/**
+	 * SQL INSERT OR REPLACE statement with a parameter for each column
+	 * in the same order as {@link #insertSql()}, so that it can be bound
+	 * by {@link #bindInsert(SQLiteStatement, Object)}.
+	 *
+	 * @return String SQL statement
+	 */
+	public abstract String upsertSql();
+
+	/**
+	 * Returns true if any declared index is UNIQUE, in which case
+	 * {@link #upsertSql()} may replace rows other than the one with
+	 * the entity's ID.
+	 *
+	 * @return boolean
+	 */
+	public boolean hasUniqueIndex() {
+		for (String sql : createIndexSql()) {
+			if (sql.startsWith("CREATE UNIQUE ")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * @return DROP TABLE statement
 	 */
@@ -103,6 +150,18 @@ public abstract class TableHelper<T> {
 	 */
 	protected abstract String upgradeSql(int oldVersion, int newVersion);
 
+	/**
+	 * Generated SQL statements which migrate the table from oldVersion
+	 * to newVersion, such as ALTER TABLE ADD COLUMN for each field added
+	 * in the versions between. Derived from the schema history recorded
+	 * by the annotation processor.
+	 *
+	 * @param oldVersion
+	 * @param newVersion
+	 * @return String[] SQL statements in version order
+	 */
+	protected abstract String[] alterSql(int oldVersion, int newVersion);
+
 	/**
 	 * Extract from a cursor an array of String values in order of the Columns
 	 * enum. Note that column order is not guaranteed when adding or removing
@@ -143,19 +202,95 @@ public abstract class TableHelper<T> {
 	 */
 	public abstract ContentValues getEditableValues(T obj);
 
+	/**
+	 * Bind the values of the supplied POJO to a statement compiled from
+	 * {@link #insertSql()}. Each field is bound by position in declared
+	 * order, so primitive fields are bound without boxing. An ID of 0 is
+	 * bound as null to let the database generate the ID.
+	 *
+	 * @param stmt
+	 * @param obj
+	 */
+	public abstract void bindInsert(SQLiteStatement stmt, T obj);
+
 	/**
 	 * @return name of the ID column
 	 */
 	public abstract Column getIdCol();
 
+	/**
+	 * Returns the entity cache declared with &#64;Entity(cacheSize), which
+	 * is shared by all instances of the generated TableHelper.
+	 *
+	 * @return EntityCache or null if the entity is not cached
+	 */
+	public EntityCache<T> getCache() {
+		return null;
+	}
+
+	/**
+	 * Create a new instance of a POJO by calling its setters with the values
+	 * obtained from a {@link Cursor}. The cursor may contain any subset of
+	 * the entity's columns in any order; fields whose column is missing keep
+	 * their default values. When mapping many rows, prefer
+	 * {@link #newInstance(Cursor, int[])} so that column positions are
+	 * resolved only once.
+	 *
+	 * @param c
+	 * @return a new instance
+	 */
+	public T newInstance(Cursor c) {
+		return newInstance(c, getColumnIndexes(c));
+	}
+
+	/**
+	 * Create a new instance of a POJO having default values.
+	 *
+	 * @return a new instance
+	 */
+	public abstract T newInstance();
+
 	/**
 	 * Create a new instance of a POJO by calling its setters with the values
-	 * obtained from a {@link Cursor}.
+	 * at the given cursor positions.
 	 *
 	 * @param c
+	 * @param cols cursor position of each column as returned by
+	 *        {@link #getColumnIndexes(Cursor)}
 	 * @return a new instance
 	 */
-	public abstract T newInstance(Cursor c);
+	public abstract T newInstance(Cursor c, int[] cols);
+
+	/**
+	 * Populate an existing instance of a POJO by calling its setters with
+	 * the values at the given cursor positions. Fields whose column is not
+	 * in the cursor are left unchanged. This allows a single instance to be
+	 * reused for every row of a large scan.
+	 *
+	 * @param obj instance to populate
+	 * @param c
+	 * @param cols cursor position of each column as returned by
+	 *        {@link #getColumnIndexes(Cursor)}
+	 * @return obj
+	 */
+	public abstract T populate(T obj, Cursor c, int[] cols);
+
+	/**
+	 * Resolve the position in a {@link Cursor} of each column in order of
+	 * the Columns enum, or -1 if the column is not in the cursor's projection.
+	 * Positions don't change from row to row, so resolve them once per cursor.
+	 *
+	 * @param c
+	 * @return cursor position of each column
+	 */
+	public int[] getColumnIndexes(Cursor c) {
+		Column[] columns = getColumns();
+		int[] cols = new int[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			cols[i] = c.getColumnIndex(columns[i].toString());
+		}
+		return cols;
+	}
 
 	/**
 	 * Add conditions to a filter for each property of the example object
@@ -173,7 +308,11 @@ public abstract class TableHelper<T> {
 	 * @param db
 	 */
 	protected void onCreate(SQLiteDatabase db) {
+		clearCache();
 		db.execSQL(createSql());
+		for (String sql : createIndexSql()) {
+			db.execSQL(sql);
+		}
 	}
 
 	/**
@@ -182,12 +321,15 @@ public abstract class TableHelper<T> {
 	 * @param db
 	 */
 	protected void onDrop(SQLiteDatabase db) {
+		clearCache();
 		db.execSQL(dropSql());
 	}
 
 	/**
-	 * Upgrades the table that represents the associated entity. This will
-	 * typically be an ALTER TABLE statement.
+	 * Upgrades the table that represents the associated entity by running
+	 * the generated {@link #alterSql(int, int)} followed by any custom
+	 * {@link #upgradeSql(int, int)}, then brings the table's indexes up to
+	 * date. Creates the table if it doesn't exist yet.
 	 *
 	 * @param db
 	 * @param oldVersion
@@ -195,7 +337,144 @@ public abstract class TableHelper<T> {
 	 */
 	protected void onUpgrade(final SQLiteDatabase db, final int oldVersion,
 			final int newVersion) {
-		db.execSQL(upgradeSql(oldVersion, newVersion));
+		clearCache();
+		if (getColumnInfo(db, getTableName()).isEmpty()) {
+			// new since oldVersion
+			onCreate(db);
+			return;
+		}
+		for (String alter : alterSql(oldVersion, newVersion)) {
+			db.execSQL(alter);
+		}
+		String sql = upgradeSql(oldVersion, newVersion);
+		if (sql != null) {
+			db.execSQL(sql);
+		}
+		syncIndexes(db);
+	}
+
+	/**
+	 * Drops any declared index whose definition has changed and any index
+	 * with a generated name (IDX_ followed by the table name) which is no
+	 * longer declared, then creates the declared indexes which don't
+	 * exist. Other indexes, such as those created by
+	 * {@link #upgradeSql(int, int)} or automatically by SQLite for UNIQUE
+	 * and PRIMARY KEY constraints, are left alone.
+	 *
+	 * @param db
+	 */
+	protected void syncIndexes(SQLiteDatabase db) {
+		String[] names = getIndexNames();
+		String[] sqls = createIndexSql();
+		Map<String, String> declared = new HashMap<String, String>();
+		for (int i = 0; i < names.length; i++) {
+			// sqlite_master stores DDL without IF NOT EXISTS
+			declared.put(names[i].toUpperCase(), sqls[i].replace(" IF NOT EXISTS", ""));
+		}
+		String table = getTableName().replace("[", "").replace("]", "");
+		String generatedPrefix = ("IDX_" + table + "_").toUpperCase();
+		Cursor c = db.rawQuery("SELECT name, sql FROM sqlite_master WHERE type='index' AND sql IS NOT NULL AND tbl_name=?",
+				new String[] { table });
+		try {
+			while (c.moveToNext()) {
+				String name = c.getString(0).toUpperCase();
+				String sql = declared.get(name);
+				boolean stale = (sql == null) ? name.startsWith(generatedPrefix)
+						: !sql.equals(c.getString(1));
+				if (stale) {
+					db.execSQL("DROP INDEX IF EXISTS " + c.getString(0));
+				}
+			}
+		} finally {
+			c.close();
+		}
+		for (String sql : sqls) {
+			db.execSQL(sql);
+		}
+	}
+
+	/**
+	 * Recreates the table from {@link #createSql()} and copies every row
+	 * of the existing table into it without leaving the database. Columns
+	 * present in both tables are copied by name. New columns, and NULLs
+	 * in columns which are now NOT NULL, get the value of the corresponding
+	 * field in a new entity instance. Creates the table if it doesn't
+	 * exist. Call within a transaction.
+	 *
+	 * @param db
+	 */
+	protected void recreateAndCopy(SQLiteDatabase db) {
+		clearCache();
+		Map<String, Boolean> oldCols = getColumnInfo(db, getTableName());
+		if (oldCols.isEmpty()) {
+			onCreate(db);
+			return;
+		}
+		String oldTable = getTableName().replace("[", "").replace("]", "") + "_storm_old";
+		db.execSQL("DROP TABLE IF EXISTS " + oldTable);
+		db.execSQL("ALTER TABLE " + getTableName() + " RENAME TO " + oldTable);
+		db.execSQL(createSql());
+		Map<String, Boolean> newCols = getColumnInfo(db, getTableName());
+		// Defaults are selected from a one-row derived table d bound
+		// by bindInsert() so that each takes the column's SQL type
+		StringBuilder colList = new StringBuilder();
+		StringBuilder selectList = new StringBuilder();
+		StringBuilder defaults = new StringBuilder();
+		Column[] columns = getColumns();
+		for (int i = 0; i < columns.length; i++) {
+			String col = columns[i].toString();
+			String dflt = "d.C" + i;
+			String expr;
+			if (!oldCols.containsKey(col.toUpperCase())) {
+				expr = dflt;
+			} else if (Boolean.TRUE.equals(newCols.get(col.toUpperCase()))) {
+				expr = "COALESCE(o." + col + "," + dflt + ")";
+			} else {
+				expr = "o." + col;
+			}
+			if (i > 0) {
+				colList.append(",");
+				selectList.append(",");
+				defaults.append(",");
+			}
+			colList.append(col);
+			selectList.append(expr);
+			defaults.append("? AS C").append(i);
+		}
+		SQLiteStatement stmt = db.compileStatement("INSERT INTO " + getTableName()
+				+ "(" + colList + ") SELECT " + selectList + " FROM " + oldTable
+				+ " o, (SELECT " + defaults + ") d");
+		try {
+			bindInsert(stmt, newInstance());
+			stmt.execute();
+		} finally {
+			stmt.close();
+		}
+		db.execSQL("DROP TABLE " + oldTable);
+		// after the drop, so IF NOT EXISTS doesn't match the old table's indexes
+		for (String sql : createIndexSql()) {
+			db.execSQL(sql);
+		}
+	}
+
+	/**
+	 * Returns the upper case name of each column of a table mapped to
+	 * true if the column is NOT NULL, or an empty map if the table
+	 * doesn't exist.
+	 */
+	private Map<String, Boolean> getColumnInfo(SQLiteDatabase db, String table) {
+		Map<String, Boolean> cols = new HashMap<String, Boolean>();
+		Cursor c = db.rawQuery("PRAGMA table_info(" + table + ")", null);
+		try {
+			int nameCol = c.getColumnIndex("name");
+			int notNullCol = c.getColumnIndex("notnull");
+			while (c.moveToNext()) {
+				cols.put(c.getString(nameCol).toUpperCase(), c.getInt(notNullCol) != 0);
+			}
+		} finally {
+			c.close();
+		}
+		return cols;
 	}
 
 	/**
@@ -229,9 +508,59 @@ public abstract class TableHelper<T> {
 	 * @param suffix
 	 */
 	public void restore(SQLiteDatabase db, Context ctx, String suffix) {
+		clearCache();
 		new CsvTableReader(this).importFromCsv(ctx, db, suffix);
 	}
 
+	private void clearCache() {
+		EntityCache<T> cache = getCache();
+		if (cache != null) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Backs up the current table to a binary snapshot, which is faster
+	 * than CSV for large tables because values are not converted to
+	 * Strings.
+	 *
+	 * @param db
+	 * @param ctx
+	 * @param suffix
+	 *
+	 * @return true on success
+	 */
+	public boolean backupBinary(SQLiteDatabase db, Context ctx, String suffix) {
+		try {
+			new BinaryTableWriter(this).dumpToFile(ctx, db, suffix);
+		} catch (SQLException e) {
+			if (e.getMessage() != null && e.getMessage().contains("no such table")) {
+				Log.w(TAG, "Table " + this.getTableName() + " doesn't exist. This is expected if the table is new in this db version.");
+			} else {
+				Log.e(TAG, "Backup of " + this.getTableName() + " failed", e);
+				return false;
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Restores a table from a binary snapshot.
+	 *
+	 * @param db
+	 * @param ctx
+	 * @param suffix
+	 * @return count of rows restored or -1 if there is no snapshot
+	 * @throws RuntimeException if the snapshot can't be restored
+	 */
+	public int restoreBinary(SQLiteDatabase db, Context ctx, String suffix) {
+		clearCache();
+		return new BinaryTableReader(this).importFromFile(ctx, db, suffix);
+	}
+
 	/**
 	 * Drops a table and recreates it.
 	 *
@@ -275,4 +604,37 @@ public abstract class TableHelper<T> {
 		return c.isNull(col) ? null : c.getString(col);
 	}
 
+	/*
+	 * Statement wrapper methods which bind wrapper types
+	 * to the corresponding primitive type or null
+	 */
+
+	protected void bindBlobOrNull(SQLiteStatement stmt, int index, byte[] value) {
+		if (value == null) stmt.bindNull(index); else stmt.bindBlob(index, value);
+	}
+
+	protected void bindDoubleOrNull(SQLiteStatement stmt, int index, Double value) {
+		if (value == null) stmt.bindNull(index); else stmt.bindDouble(index, value);
+	}
+
+	protected void bindFloatOrNull(SQLiteStatement stmt, int index, Float value) {
+		if (value == null) stmt.bindNull(index); else stmt.bindDouble(index, value);
+	}
+
+	protected void bindIntOrNull(SQLiteStatement stmt, int index, Integer value) {
+		if (value == null) stmt.bindNull(index); else stmt.bindLong(index, value);
+	}
+
+	protected void bindLongOrNull(SQLiteStatement stmt, int index, Long value) {
+		if (value == null) stmt.bindNull(index); else stmt.bindLong(index, value);
+	}
+
+	protected void bindShortOrNull(SQLiteStatement stmt, int index, Short value) {
+		if (value == null) stmt.bindNull(index); else stmt.bindLong(index, value);
+	}
+
+	protected void bindStringOrNull(SQLiteStatement stmt, int index, String value) {
+		if (value == null) stmt.bindNull(index); else stmt.bindString(index, value);
+	}
+
 }
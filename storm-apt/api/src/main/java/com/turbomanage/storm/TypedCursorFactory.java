@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright 2012 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.turbomanage.storm;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteCursor;
+import android.database.sqlite.SQLiteCursorDriver;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDatabase.CursorFactory;
+import android.database.sqlite.SQLiteProgram;
+import android.database.sqlite.SQLiteQuery;
+
+/**
+ * A {@link CursorFactory} which binds query parameters with their SQL
+ * types rather than as Strings, so that comparisons against INTEGER and
+ * REAL columns don't depend on type affinity and can use indexes.
+ *
+ * @author David M. Chandler
+ */
+public class TypedCursorFactory implements CursorFactory {
+
+	private final Object[] args;
+
+	/**
+	 * @param args parameter values as accepted by
+	 *        {@link #bindAll(SQLiteProgram, Object[])}
+	 */
+	public TypedCursorFactory(Object[] args) {
+		this.args = args;
+	}
+
+	@Override
+	public Cursor newCursor(SQLiteDatabase db, SQLiteCursorDriver masterQuery,
+			String editTable, SQLiteQuery query) {
+		bindAll(query, args);
+		return new SQLiteCursor(masterQuery, editTable, query);
+	}
+
+	/**
+	 * Binds each value to a compiled statement or query according to its
+	 * type: integral Numbers as INTEGER, Float and Double as REAL, byte[]
+	 * as BLOB, and null as NULL. Anything else is bound as TEXT.
+	 *
+	 * @param prog
+	 * @param args may be null
+	 */
+	public static void bindAll(SQLiteProgram prog, Object[] args) {
+		if (args == null) {
+			return;
+		}
+		for (int i = 0; i < args.length; i++) {
+			Object arg = args[i];
+			int index = i + 1;
+			if (arg == null) {
+				prog.bindNull(index);
+			} else if (arg instanceof Long || arg instanceof Integer
+					|| arg instanceof Short || arg instanceof Byte) {
+				prog.bindLong(index, ((Number) arg).longValue());
+			} else if (arg instanceof Double || arg instanceof Float) {
+				prog.bindDouble(index, ((Number) arg).doubleValue());
+			} else if (arg instanceof byte[]) {
+				prog.bindBlob(index, (byte[]) arg);
+			} else {
+				prog.bindString(index, arg.toString());
+			}
+		}
+	}
+
+}
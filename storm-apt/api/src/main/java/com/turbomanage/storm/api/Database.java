@@ -20,9 +20,25 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+import com.turbomanage.storm.DatabaseHelper;
+import com.turbomanage.storm.DatabaseHelper.JournalMode;
+import com.turbomanage.storm.DatabaseHelper.Synchronous;
+
 /**
  * Annotation for {@link com.turbomanage.storm.DatabaseHelper}.
  *
+ * Set journalMode to {@link JournalMode#WAL} to let reads run
+ * concurrently with a write transaction.
+ *
+ * The {@link DatabaseHelper.UpgradeStrategy#UPGRADE} strategy generates
+ * ALTER TABLE statements from the schema of each table at every version
+ * compiled so far. That history is kept only in the stormEnv file which
+ * the annotation processor writes to the generated sources directory
+ * (com/turbomanage/storm/stormEnv). Commit that file and restore it
+ * before building, because a clean build or a fresh checkout otherwise
+ * loses the history. With version above 1 and no history at all, the
+ * build fails unless {@link #requireSchemaHistory()} is false.
+ *
  * @author David M. Chandler
  */
 @Retention(RetentionPolicy.SOURCE)
@@ -31,4 +47,18 @@ public @interface Database {
 	String dbName() default "";
     String name() default "";
 	int version();
+	JournalMode journalMode() default JournalMode.DEFAULT;
+	Synchronous synchronous() default Synchronous.DEFAULT;
+	/**
+	 * Number of threads used for asynchronous reads. Has effect only
+	 * with {@link JournalMode#WAL}.
+	 */
+	int readerConnections() default 0;
+	/**
+	 * Fail the build when version is above 1 but no earlier schema is
+	 * recorded for any table. Set to false only if no installed app has
+	 * an earlier version of this database, as when first adopting Storm
+	 * at a later version.
+	 */
+	boolean requireSchemaHistory() default true;
 }
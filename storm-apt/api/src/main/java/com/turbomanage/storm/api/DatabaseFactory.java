@@ -15,6 +15,8 @@
  ******************************************************************************/
 package com.turbomanage.storm.api;
 
+import com.turbomanage.storm.DatabaseHelper.JournalMode;
+import com.turbomanage.storm.DatabaseHelper.Synchronous;
 import com.turbomanage.storm.TableHelper;
 
 /**
@@ -40,4 +42,19 @@ public interface DatabaseFactory {
 	 */
 	TableHelper[] getTableHelpers();
 
+	/**
+	 * @return journal mode applied when the database is opened
+	 */
+	JournalMode getJournalMode();
+
+	/**
+	 * @return synchronous level applied when the database is opened
+	 */
+	Synchronous getSynchronous();
+
+	/**
+	 * @return number of threads used for asynchronous reads
+	 */
+	int getReaderConnections();
+
 }
@@ -15,6 +15,7 @@
  ******************************************************************************/
 package com.turbomanage.storm.api;
 
+import com.turbomanage.storm.EntityCache.RefType;
 import com.turbomanage.storm.SQLiteDao;
 
 import java.lang.annotation.ElementType;
@@ -27,6 +28,9 @@ import java.lang.annotation.Target;
  * entity classes is that they have a field of type long
  * named id or annotated with @Id
  *
+ * Set cacheSize to keep recently used entities in memory so that
+ * {@link SQLiteDao#get(Long)} can skip the query.
+ *
  * @author David M. Chandler
  */
 @Retention(RetentionPolicy.SOURCE)
@@ -36,4 +40,10 @@ public @interface Entity {
 	String dbName() default "";
 	String name() default "";
 	Class<? extends SQLiteDao> baseDaoClass() default SQLiteDao.class;
+	/**
+	 * Max number of entities held in an LRU cache for lookups by ID,
+	 * or 0 for no cache.
+	 */
+	int cacheSize() default 0;
+	RefType cacheRefType() default RefType.SOFT;
 }
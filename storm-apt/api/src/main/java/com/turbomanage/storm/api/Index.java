@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright 2012 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.turbomanage.storm.api;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares an index on an entity's table. On a field, indexes that
+ * field's column. On an entity class, indexes the named fields in
+ * order, which allows composite indexes. Use {@link Indexes} to declare
+ * more than one index on a class.
+ *
+ * Indexes are created with the table and brought up to date on upgrade.
+ * An index with a default name which is no longer declared is dropped
+ * on upgrade. Indexes with a custom name must be dropped in
+ * {@code upgradeSql} when removed, and indexes not created by Storm are
+ * left alone.
+ *
+ * @author David M. Chandler
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target({ElementType.TYPE, ElementType.FIELD})
+public @interface Index {
+
+	/**
+	 * Index name. Defaults to IDX_ followed by the table and column names.
+	 */
+	String name() default "";
+
+	/**
+	 * Names of the indexed fields, each optionally followed by ASC or DESC.
+	 * Required on a class; defaults to the annotated field.
+	 */
+	String[] columns() default {};
+
+	boolean unique() default false;
+
+	/**
+	 * Optional WHERE clause which makes this a partial index. Requires
+	 * SQLite 3.8.0 (Android 5.0) or later.
+	 */
+	String where() default "";
+}
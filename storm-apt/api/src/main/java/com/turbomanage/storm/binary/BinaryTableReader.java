@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright 2012 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.turbomanage.storm.binary;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import com.turbomanage.storm.TableHelper;
+import com.turbomanage.storm.TableHelper.Column;
+
+/**
+ * Contains methods used to restore a table from a binary snapshot
+ * written by {@link BinaryTableWriter}. Each instance is associated
+ * with one table.
+ *
+ * The snapshot begins with a header containing a magic number, the
+ * format version, and the name and declared type of each column.
+ * Each row is preceded by a marker byte, and each value by its
+ * {@link Cursor} field type. Integers and floats are written as raw
+ * longs and doubles; strings (UTF-8) and blobs are length-prefixed.
+ *
+ * @author David M. Chandler
+ */
+public class BinaryTableReader {
+
+	private static final String TAG = BinaryTableReader.class.getName();
+	static final int MAGIC = 0x53544f52; // STOR
+	static final int FORMAT_VERSION = 1;
+	static final byte ROW = 1;
+	static final byte END = 0;
+	static final String UTF8 = "UTF-8";
+	static final int BUFFER_SIZE = 64 * 1024;
+
+	@SuppressWarnings("rawtypes")
+	protected TableHelper th;
+
+	/**
+	 * Constructor requires a corresponding {@link TableHelper} class.
+	 *
+	 * @param tableHelper
+	 */
+	@SuppressWarnings("rawtypes")
+	public BinaryTableReader(TableHelper tableHelper) {
+		this.th = tableHelper;
+	}
+
+	protected String getFilename(String dbPath, int dbVersion, String suffix) {
+		String[] path = dbPath.split("/");
+		String dbName = path[path.length-1];
+		String tableName = th.getTableName();
+		return String.format("%s.v%d.%s.bin%s", dbName, dbVersion, tableName, (suffix == null) ? "" : suffix);
+	}
+
+	/**
+	 * Attempts to import a database table from a binary snapshot in the
+	 * default location.
+	 *
+	 * @param ctx
+	 * @param db
+	 * @param suffix
+	 *
+	 * @return count of rows imported or -1 if there is no snapshot
+	 * @throws RuntimeException if the snapshot can't be restored
+	 */
+	public int importFromFile(Context ctx, SQLiteDatabase db, String suffix) {
+		String filename = getFilename(db.getPath(), db.getVersion(), suffix);
+		try {
+			return importFromStream(db, ctx.openFileInput(filename));
+		} catch (FileNotFoundException e) {
+			Log.w(TAG, "No snapshot " + filename + ". This is expected if the table is new in this db version.");
+			return -1;
+		}
+	}
+
+	/**
+	 * Deletes the snapshot in the default location.
+	 *
+	 * @param ctx
+	 * @param db
+	 * @param suffix
+	 * @return true if deleted
+	 */
+	public boolean deleteFile(Context ctx, SQLiteDatabase db, String suffix) {
+		return ctx.deleteFile(getFilename(db.getPath(), db.getVersion(), suffix));
+	}
+
+	/**
+	 * Imports a database table from a binary snapshot in a single
+	 * transaction. Snapshot columns are matched to table columns by
+	 * name. Columns which are not in the snapshot get the value of the
+	 * corresponding field in a new entity instance, and snapshot columns
+	 * which no longer exist are skipped.
+	 *
+	 * @param db
+	 * @param is
+	 * @return count of rows imported
+	 * @throws RuntimeException if the snapshot can't be read, so that
+	 *         an enclosing upgrade fails rather than losing the rows
+	 */
+	public int importFromStream(SQLiteDatabase db, InputStream is) {
+		int numInserts = 0;
+		DataInputStream in = new DataInputStream(new BufferedInputStream(is, BUFFER_SIZE));
+		SQLiteStatement stmt = db.compileStatement(th.insertSql());
+		db.beginTransaction();
+		try {
+			if (in.readInt() != MAGIC || in.readByte() != FORMAT_VERSION) {
+				throw new IOException("Not a binary snapshot of " + th.getTableName());
+			}
+			int[] bindIndex = readHeader(in);
+			// bindings persist, so defaults stay bound for missing columns
+			TableHelper<?> helper = th;
+			bindNewInstance(helper, stmt);
+			byte[] buf = new byte[256];
+			while (in.readByte() == ROW) {
+				for (int i = 0; i < bindIndex.length; i++) {
+					int type = in.readByte();
+					int index = bindIndex[i];
+					switch (type) {
+					case Cursor.FIELD_TYPE_NULL:
+						if (index > 0) stmt.bindNull(index);
+						break;
+					case Cursor.FIELD_TYPE_INTEGER:
+						long l = in.readLong();
+						if (index > 0) stmt.bindLong(index, l);
+						break;
+					case Cursor.FIELD_TYPE_FLOAT:
+						double d = in.readDouble();
+						if (index > 0) stmt.bindDouble(index, d);
+						break;
+					case Cursor.FIELD_TYPE_STRING:
+						int len = in.readInt();
+						if (buf.length < len) {
+							buf = new byte[Math.max(len, buf.length * 2)];
+						}
+						in.readFully(buf, 0, len);
+						if (index > 0) stmt.bindString(index, new String(buf, 0, len, UTF8));
+						break;
+					case Cursor.FIELD_TYPE_BLOB:
+						byte[] blob = new byte[in.readInt()];
+						in.readFully(blob);
+						if (index > 0) stmt.bindBlob(index, blob);
+						break;
+					default:
+						throw new IOException("Unknown field type " + type);
+					}
+				}
+				if (stmt.executeInsert() == -1L) {
+					throw new RuntimeException("Error after row " + numInserts);
+				}
+				numInserts++;
+			}
+			db.setTransactionSuccessful();
+		} catch (IOException e) {
+			throw new RuntimeException("Restore of " + th.getTableName() + " failed", e);
+		} finally {
+			db.endTransaction();
+			stmt.close();
+			try {
+				in.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+		return numInserts;
+	}
+
+	/**
+	 * Binds the field values of a new entity. Captures the helper's type
+	 * so that the entity and the helper are known to match.
+	 */
+	private static <T> void bindNewInstance(TableHelper<T> helper, SQLiteStatement stmt) {
+		helper.bindInsert(stmt, helper.newInstance());
+	}
+
+	/**
+	 * Reads the column names and types and maps each snapshot column to
+	 * its 1-based position in the INSERT statement, or 0 if the column
+	 * no longer exists.
+	 *
+	 * @param in
+	 * @return statement bind index for each column in the snapshot
+	 * @throws IOException
+	 */
+	private int[] readHeader(DataInputStream in) throws IOException {
+		Column[] columns = th.getColumns();
+		Map<String, Integer> positions = new HashMap<String, Integer>();
+		for (int i = 0; i < columns.length; i++) {
+			positions.put(columns[i].toString(), i + 1);
+		}
+		int numCols = in.readInt();
+		int[] bindIndex = new int[numCols];
+		for (int i = 0; i < numCols; i++) {
+			String colName = in.readUTF();
+			// declared type is informational
+			in.readUTF();
+			Integer pos = positions.get(colName);
+			bindIndex[i] = (pos == null) ? 0 : pos;
+		}
+		return bindIndex;
+	}
+
+}
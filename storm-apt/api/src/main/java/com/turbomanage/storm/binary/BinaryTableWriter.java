@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright 2012 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.turbomanage.storm.binary;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+
+import com.turbomanage.storm.TableHelper;
+
+/**
+ * Contains methods used to dump a table to a binary snapshot. Values
+ * are copied with their storage class as reported by SQL typeof()
+ * without any conversion to String. Each instance is
+ * associated with one table.
+ *
+ * @author David M. Chandler
+ */
+public class BinaryTableWriter extends BinaryTableReader {
+
+	/**
+	 * Constructor requires a corresponding {@link TableHelper} class.
+	 * @param tableHelper
+	 */
+	@SuppressWarnings("rawtypes")
+	public BinaryTableWriter(TableHelper tableHelper) {
+		super(tableHelper);
+	}
+
+	/**
+	 * Dumps a database table to a binary snapshot in the default
+	 * location. Returns the number of rows written to the file.
+	 *
+	 * @param ctx
+	 * @param db
+	 * @param suffix
+	 *
+	 * @return count of rows in the exported file
+	 * @throws IOException
+	 */
+	public int dumpToFile(Context ctx, SQLiteDatabase db, String suffix) throws IOException {
+		String filename = getFilename(db.getPath(), db.getVersion(), suffix);
+		try {
+			return dumpToStream(db, ctx.openFileOutput(filename, 0));
+		} catch (IOException e) {
+			// don't leave a partial snapshot to be restored
+			ctx.deleteFile(filename);
+			throw e;
+		} catch (RuntimeException e) {
+			ctx.deleteFile(filename);
+			throw e;
+		}
+	}
+
+	/**
+	 * Writes the header and all rows of the table to a stream, then
+	 * closes the stream.
+	 *
+	 * @param db
+	 * @param os
+	 * @return count of rows written
+	 * @throws IOException
+	 */
+	public int dumpToStream(SQLiteDatabase db, OutputStream os) throws IOException {
+		int numRowsWritten = 0;
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os, BUFFER_SIZE));
+		try {
+			List<String> colNames = new ArrayList<String>();
+			List<String> colTypes = new ArrayList<String>();
+			readTableInfo(db, colNames, colTypes);
+			if (colNames.isEmpty()) {
+				throw new SQLiteException("no such table: " + th.getTableName());
+			}
+			writeHeader(colNames, colTypes, out);
+			int numCols = colNames.size();
+			// typeof() rather than Cursor.getType(), which is API 11
+			StringBuilder sql = new StringBuilder("SELECT ");
+			for (String col : colNames) {
+				sql.append("\"").append(col).append("\",");
+			}
+			for (int i = 0; i < numCols; i++) {
+				sql.append(i > 0 ? "," : "").append("typeof(\"").append(colNames.get(i)).append("\")");
+			}
+			sql.append(" FROM ").append(th.getTableName());
+			Cursor c = db.rawQuery(sql.toString(), null);
+			try {
+				for (boolean hasItem = c.moveToFirst(); hasItem; hasItem = c.moveToNext()) {
+					out.writeByte(ROW);
+					for (int i = 0; i < numCols; i++) {
+						int type = fieldType(c.getString(numCols + i));
+						out.writeByte(type);
+						switch (type) {
+						case Cursor.FIELD_TYPE_INTEGER:
+							out.writeLong(c.getLong(i));
+							break;
+						case Cursor.FIELD_TYPE_FLOAT:
+							out.writeDouble(c.getDouble(i));
+							break;
+						case Cursor.FIELD_TYPE_STRING:
+							byte[] bytes = c.getString(i).getBytes(UTF8);
+							out.writeInt(bytes.length);
+							out.write(bytes);
+							break;
+						case Cursor.FIELD_TYPE_BLOB:
+							byte[] blob = c.getBlob(i);
+							out.writeInt(blob.length);
+							out.write(blob);
+							break;
+						}
+					}
+					numRowsWritten++;
+				}
+			} finally {
+				c.close();
+			}
+			out.writeByte(END);
+		} finally {
+			out.close();
+		}
+		return numRowsWritten;
+	}
+
+	/**
+	 * Maps the storage class returned by SQL typeof() to the
+	 * corresponding Cursor field type.
+	 */
+	private static int fieldType(String storageClass) {
+		if ("integer".equals(storageClass)) {
+			return Cursor.FIELD_TYPE_INTEGER;
+		} else if ("real".equals(storageClass)) {
+			return Cursor.FIELD_TYPE_FLOAT;
+		} else if ("text".equals(storageClass)) {
+			return Cursor.FIELD_TYPE_STRING;
+		} else if ("blob".equals(storageClass)) {
+			return Cursor.FIELD_TYPE_BLOB;
+		}
+		return Cursor.FIELD_TYPE_NULL;
+	}
+
+	/**
+	 * Reads each column's name and declared type in table order.
+	 */
+	private void readTableInfo(SQLiteDatabase db, List<String> colNames, List<String> colTypes) {
+		Cursor info = db.rawQuery("PRAGMA table_info(" + th.getTableName() + ")", null);
+		try {
+			int nameCol = info.getColumnIndex("name");
+			int typeCol = info.getColumnIndex("type");
+			while (info.moveToNext()) {
+				colNames.add(info.getString(nameCol));
+				String type = info.getString(typeCol);
+				colTypes.add(type == null ? "" : type);
+			}
+		} finally {
+			info.close();
+		}
+	}
+
+	/**
+	 * Writes the magic number, format version, and each column's name
+	 * and declared type.
+	 */
+	private void writeHeader(List<String> colNames, List<String> colTypes, DataOutputStream out) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeByte(FORMAT_VERSION);
+		out.writeInt(colNames.size());
+		for (int i = 0; i < colNames.size(); i++) {
+			out.writeUTF(colNames.get(i));
+			out.writeUTF(colTypes.get(i));
+		}
+	}
+
+}
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright 2012 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.turbomanage.storm.csv;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+/**
+ * Streaming CSV tokenizer which reads rows directly from a char buffer.
+ * Quoted values may contain delimiters, escaped quotes, and line breaks.
+ * An empty unquoted value is read as null and an empty quoted value
+ * ("") as the empty String, so rows written by {@link CsvTableWriter}
+ * round-trip. Rows end with LF, CR, or CRLF.
+ *
+ * @author David M. Chandler
+ */
+public class CsvReader implements Closeable {
+
+	private static final int EOF = -1;
+	private static final char DELIMITER = CsvUtils.DELIMITER;
+	private static final char QUOTE = CsvUtils.QUOTE;
+	private static final char CR = CsvUtils.CR;
+	private static final char LF = CsvUtils.LF;
+
+	private final Reader in;
+	private final char[] buf;
+	private int pos, limit;
+	private final StringBuilder field = new StringBuilder();
+
+	public CsvReader(Reader in) {
+		this(in, 8192);
+	}
+
+	/**
+	 * @param in
+	 * @param bufferSize chars to read at a time
+	 */
+	public CsvReader(Reader in, int bufferSize) {
+		this.in = in;
+		this.buf = new char[bufferSize];
+	}
+
+	/**
+	 * Reads the next row into the supplied list, which is cleared first
+	 * so that it may be reused for every row.
+	 *
+	 * @param values List to receive the row's values
+	 * @return false if there are no more rows
+	 * @throws IOException
+	 */
+	public boolean readRow(List<String> values) throws IOException {
+		values.clear();
+		int c = read();
+		if (c == EOF) {
+			return false;
+		}
+		while (true) {
+			field.setLength(0);
+			boolean quoted = (c == QUOTE);
+			if (quoted) {
+				c = read();
+				while (c != EOF) {
+					if (c == QUOTE) {
+						c = read();
+						if (c != QUOTE) {
+							// closing quote
+							break;
+						}
+					}
+					field.append((char) c);
+					c = read();
+				}
+				// ignore anything between the closing quote and delimiter
+				while (c != EOF && c != DELIMITER && c != CR && c != LF) {
+					c = read();
+				}
+			} else {
+				while (c != EOF && c != DELIMITER && c != CR && c != LF) {
+					field.append((char) c);
+					c = read();
+				}
+			}
+			values.add((quoted || field.length() > 0) ? field.toString() : null);
+			if (c == DELIMITER) {
+				c = read();
+			} else {
+				if (c == CR && read() != LF && limit > 0) {
+					// not CRLF, so push back the char following CR
+					pos--;
+				}
+				return true;
+			}
+		}
+	}
+
+	private int read() throws IOException {
+		if (pos == limit) {
+			limit = in.read(buf, 0, buf.length);
+			pos = 0;
+			if (limit <= 0) {
+				limit = 0;
+				return EOF;
+			}
+		}
+		return buf[pos++];
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+}
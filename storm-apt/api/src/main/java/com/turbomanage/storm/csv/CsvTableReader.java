@@ -15,13 +15,12 @@
  ******************************************************************************/
 package com.turbomanage.storm.csv;
 
-import java.io.BufferedReader;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
 
 import android.content.Context;
@@ -98,17 +97,20 @@ public class CsvTableReader {
 		insertHelper = new DatabaseUtils.InsertHelper(db,
 				th.getTableName());
 		try {
-			InputStreamReader isr = new InputStreamReader(is);
-			BufferedReader reader = new BufferedReader(isr);
-			String headerRow = reader.readLine();
-			String csvRow = reader.readLine();
-			while (csvRow != null) {
-				long rowId = parseAndInsertRow(csvRow);
+			CsvReader reader = new CsvReader(new InputStreamReader(is));
+			List<String> values = new ArrayList<String>();
+			// header row
+			reader.readRow(values);
+			String[] rowValues = new String[0];
+			while (reader.readRow(values)) {
+				if (rowValues.length != values.size()) {
+					rowValues = new String[values.size()];
+				}
+				long rowId = insertRow(values.toArray(rowValues));
 				if (rowId == -1L) {
 					throw new RuntimeException("Error after row " + numInserts);
 				}
 				numInserts++;
-				csvRow = reader.readLine();
 			}
 			db.setTransactionSuccessful();
 		} catch (FileNotFoundException e) {
@@ -122,17 +124,15 @@ public class CsvTableReader {
 	}
 
 	/**
-	 * Parse the values in a CSV row, map them to the table column
-	 * order, and insert. Uses {@link InsertHelper} so it may be
-	 * called repeatedly within a transaction for max performance.
+	 * Insert the values in a CSV row in table column order. Uses
+	 * {@link InsertHelper} so it may be called repeatedly within a
+	 * transaction for max performance.
 	 *
-	 * @param csvRow
+	 * @param rowValues
 	 * @return row ID of the newly inserted row or -1
 	 */
-	private long parseAndInsertRow(String csvRow) {
-		List<String> textValues = CsvUtils.getValues(csvRow);
+	private long insertRow(String[] rowValues) {
 		insertHelper.prepareForInsert();
-        String[] rowValues = textValues.toArray(new String[textValues.size()]);
 		th.bindRowValues(insertHelper, rowValues);
 		return insertHelper.execute();
 	}
@@ -42,18 +42,22 @@ public class CsvUtils {
 
 	/**
 	 * Returns a {@link String} for a CSV column enclosed in double
-	 * quotes, if required.
+	 * quotes, if required. The empty String is always quoted so that it
+	 * can be told apart from null, which is written as nothing at all.
 	 *
 	 * see <a
 	 * href="http://en.wikipedia.org/wiki/Comma-separated_values">Wikipedia</a>
 	 * and <a href="http://tools.ietf.org/html/rfc4180">RFC 4180</a>.
 	 *
 	 * @param str the input String, may be null
-	 * @return the input String enclosed in double quotes if required, or null
+	 * @return the input String enclosed in double quotes if required,
+	 *         or an empty String if the input is null
 	 */
 	public static String escapeCsv(String str) {
 		if (str == null)
 			return "";
+		if (str.length() == 0)
+			return QUOTE_STR + QUOTE_STR;
 		if (containsNone(str, CSV_SEARCH_CHARS))
 			return str;
 		StringWriter out = new StringWriter();
@@ -77,7 +81,7 @@ public class CsvUtils {
 	public static String unescapeCsv(String str) {
 		if (str == null)
 			return null;
-		if (!(str.charAt(0) == QUOTE && str.charAt(str.length() - 1) == QUOTE))
+		if (str.length() < 2 || !(str.charAt(0) == QUOTE && str.charAt(str.length() - 1) == QUOTE))
 			return str;
 		String quoteless = str.substring(1, str.length() - 1);
 		return quoteless.replace(QUOTE_STR + QUOTE_STR, QUOTE_STR);
@@ -101,20 +105,17 @@ public class CsvUtils {
 	 */
 	public static List<String> getValues(String csvRow) {
 		List<String> values = new ArrayList<String>();
-		StringReader in = new StringReader(csvRow);
-		String value;
 		try {
-			value = nextValue(in);
-			while (true) {
-				values.add(value);
-				value = nextValue(in);
-			}
+			new CsvReader(new StringReader(csvRow)).readRow(values);
 		} catch (IOException e) {
-			// TODO handle case of final null value better?
-			if (csvRow.lastIndexOf(',') == csvRow.length() - 1)
-				values.add(null);
-			return values;
+			// StringReader doesn't throw
+			throw new RuntimeException(e);
 		}
+		if (values.isEmpty()) {
+			// empty row is a single null value
+			values.add(null);
+		}
+		return values;
 	}
 
 	/**
@@ -123,7 +124,10 @@ public class CsvUtils {
 	 * @param in
 	 * @return An escaped value
 	 * @throws IOException
+	 * @deprecated Signals the end of the row with an exception.
+	 *             Use {@link CsvReader} instead.
 	 */
+	@Deprecated
 	public static String nextValue(StringReader in) throws IOException {
 		StringWriter w = new StringWriter();
 		boolean inQuotedValue = false;
@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright 2012 Google, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.turbomanage.storm.exception;
+
+/**
+ * Wraps a checked exception thrown by the work passed to
+ * {@link com.turbomanage.storm.DatabaseHelper#runInTransaction(java.util.concurrent.Callable)}
+ * after the work has been rolled back.
+ */
+public class TransactionFailedException extends RuntimeException {
+
+	public TransactionFailedException(String detailMessage) {
+		super(detailMessage);
+	}
+
+	public TransactionFailedException(Throwable throwable) {
+		super(throwable);
+	}
+
+	public TransactionFailedException(String detailMessage, Throwable throwable) {
+		super(detailMessage, throwable);
+	}
+
+}
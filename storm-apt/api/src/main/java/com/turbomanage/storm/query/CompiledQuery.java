@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright 2012 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.turbomanage.storm.query;
+
+import java.util.List;
+
+import android.database.Cursor;
+
+import com.turbomanage.storm.Callback;
+import com.turbomanage.storm.SQLiteDao;
+
+/**
+ * An immutable query whose SQL and column mapping are built once by
+ * {@link Query#compile()}. Each execution reuses the same SQL, so the
+ * statement is prepared only once per connection. Instances are
+ * thread-safe; {@link #bind(Object...)} returns a new instance which
+ * shares the SQL and differs only in parameter values.
+ *
+ * @author David M. Chandler
+ *
+ * @param <T>
+ */
+public class CompiledQuery<T> {
+
+	private final SQLiteDao<T> dao;
+	private final String sql;
+	private final String countSql;
+	private final int[] cols;
+	private final Object[] params;
+
+	CompiledQuery(SQLiteDao<T> dao, String sql, String countSql, int[] cols, Object[] params) {
+		this.dao = dao;
+		this.sql = sql;
+		this.countSql = countSql;
+		this.cols = cols;
+		this.params = params;
+	}
+
+	/**
+	 * Returns a query with new values for the parameters, in the order
+	 * in which the conditions were added to the {@link Query}.
+	 *
+	 * @param values one per parameter
+	 * @return a new CompiledQuery sharing this query's SQL
+	 */
+	public CompiledQuery<T> bind(Object... values) {
+		if (values.length != params.length) {
+			throw new IllegalArgumentException("Expected " + params.length
+					+ " parameters but got " + values.length);
+		}
+		Object[] bound = new Object[values.length];
+		for (int i = 0; i < values.length; i++) {
+			bound[i] = Query.toSqlValue(values[i]);
+		}
+		return new CompiledQuery<T>(dao, sql, countSql, cols, bound);
+	}
+
+	/**
+	 * Returns the number of rows which match the query without
+	 * creating a Cursor.
+	 *
+	 * @return long count
+	 */
+	public long count() {
+		return dao.queryForLong(countSql, params);
+	}
+
+	/**
+	 * Executes the query.
+	 * Calling method MUST close the Cursor!
+	 *
+	 * @return Cursor result
+	 */
+	public Cursor exec() {
+		return dao.rawQuery(sql, params);
+	}
+
+	/**
+	 * Executes the query and returns the result as an object.
+	 *
+	 * @see SQLiteDao#asObject(Cursor, int[])
+	 * @return The matching entity or null
+	 */
+	public T get() {
+		return dao.asObject(exec(), cols);
+	}
+
+	/**
+	 * Executes the query and returns the result as a {@link java.util.List}.
+	 *
+	 * @see SQLiteDao#asList(Cursor, int[])
+	 * @return A List of matching entities
+	 */
+	public List<T> list() {
+		return dao.asList(exec(), cols);
+	}
+
+	/**
+	 * Runs the query on the reader pool now and again whenever the
+	 * entity's table changes, delivering each result to the callback
+	 * on the main thread until the returned {@link ObservedQuery} is
+	 * cancelled.
+	 *
+	 * @param callback receives each result
+	 * @return ObservedQuery to cancel when done
+	 */
+	public ObservedQuery<T> observe(Callback<List<T>> callback) {
+		ObservedQuery<T> observed = new ObservedQuery<T>(this,
+				dao.getTableHelper().getTableName(), dao.getDbHelper(), callback);
+		observed.start();
+		return observed;
+	}
+
+	public String getSql() {
+		return sql;
+	}
+
+}
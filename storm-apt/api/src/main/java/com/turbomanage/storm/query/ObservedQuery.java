@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright 2012 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.turbomanage.storm.query;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.turbomanage.storm.Callback;
+import com.turbomanage.storm.DatabaseHelper;
+import com.turbomanage.storm.TableChangeListener;
+
+/**
+ * A {@link CompiledQuery} which is re-run on the database's reader pool
+ * whenever its table is written, delivering each new result to a
+ * {@link Callback} on the main thread. Obtain one from
+ * {@link Query#observe(Callback)} and cancel it when the results are
+ * no longer needed, as it stays registered with the
+ * {@link DatabaseHelper} until then.
+ *
+ * Changes are published once per committed transaction, and changes
+ * which arrive while the query is running are coalesced into a single
+ * re-run, so a burst of writes costs at most one extra execution and
+ * at most one execution is in flight at a time. Every completed result
+ * is posted, even if the table has changed since, so that observers
+ * keep receiving results under a steady stream of writes; a result
+ * still waiting on the main thread when a newer one arrives is skipped.
+ * Each result is the complete list, which callers may compare with
+ * the previous one if they need a diff.
+ *
+ * @author David M. Chandler
+ *
+ * @param <T> Entity type
+ */
+public class ObservedQuery<T> {
+
+	private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+	private final CompiledQuery<T> query;
+	private final String tableName;
+	private final DatabaseHelper dbHelper;
+	private final Callback<List<T>> callback;
+	// set when the table has changed since the last run began
+	private final AtomicBoolean dirty = new AtomicBoolean();
+	private final AtomicBoolean running = new AtomicBoolean();
+	private volatile boolean cancelled;
+	// sequence of the latest result, so older posts are skipped
+	private volatile int generation;
+
+	private final TableChangeListener listener = new TableChangeListener() {
+		@Override
+		public void onTablesChanged(Set<String> tableNames) {
+			if (tableNames.contains(tableName)) {
+				requery();
+			}
+		}
+	};
+
+	private final Runnable runner = new Runnable() {
+		@Override
+		public void run() {
+			do {
+				dirty.set(false);
+				List<T> result = null;
+				RuntimeException error = null;
+				try {
+					result = query.list();
+				} catch (RuntimeException e) {
+					error = e;
+				}
+				if (!cancelled) {
+					deliver(result, error);
+				}
+				running.set(false);
+				// re-run once for any changes made during this run
+			} while (dirty.get() && !cancelled && running.compareAndSet(false, true));
+		}
+	};
+
+	ObservedQuery(CompiledQuery<T> query, String tableName, DatabaseHelper dbHelper,
+			Callback<List<T>> callback) {
+		this.query = query;
+		this.tableName = tableName;
+		this.dbHelper = dbHelper;
+		this.callback = callback;
+	}
+
+	/**
+	 * Registers for table changes and runs the query for the first time.
+	 */
+	void start() {
+		dbHelper.addTableChangeListener(listener);
+		requery();
+	}
+
+	/**
+	 * Stops re-running the query. No further results are delivered,
+	 * including any already posted to the main thread.
+	 */
+	public void cancel() {
+		cancelled = true;
+		dbHelper.removeTableChangeListener(listener);
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	public CompiledQuery<T> getQuery() {
+		return query;
+	}
+
+	private void requery() {
+		dirty.set(true);
+		if (!cancelled && running.compareAndSet(false, true)) {
+			dbHelper.getReadExecutor().execute(runner);
+		}
+	}
+
+	private void deliver(final List<T> result, final RuntimeException error) {
+		final int seq = ++generation;
+		MAIN_HANDLER.post(new Runnable() {
+			@Override
+			public void run() {
+				if (cancelled || seq != generation) {
+					return;
+				}
+				if (error == null) {
+					callback.onSuccess(result);
+				} else {
+					callback.onFailure(error);
+				}
+			}
+		});
+	}
+
+}
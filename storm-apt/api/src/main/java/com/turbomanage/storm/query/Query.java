@@ -16,19 +16,23 @@
 package com.turbomanage.storm.query;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 import android.database.Cursor;
+import android.database.sqlite.SQLiteQueryBuilder;
 
+import com.turbomanage.storm.Callback;
+import com.turbomanage.storm.CloseableIterator;
 import com.turbomanage.storm.SQLiteDao;
+import com.turbomanage.storm.TableHelper;
 import com.turbomanage.storm.TableHelper.Column;
+import com.turbomanage.storm.TypedCursorFactory;
 import com.turbomanage.storm.types.BooleanConverter;
 import com.turbomanage.storm.types.ByteConverter;
 import com.turbomanage.storm.types.CharConverter;
+import com.turbomanage.storm.types.DateConverter;
 import com.turbomanage.storm.types.EnumConverter;
-import com.turbomanage.storm.types.IntegerConverter;
-import com.turbomanage.storm.types.LongConverter;
-import com.turbomanage.storm.types.ShortConverter;
 
 /**
  * Builds a SQL query constructed by ANDing together all conditions.
@@ -42,8 +46,14 @@ public class Query<T> {
 	private static final String TAG = Query.class.getName();
 	private SQLiteDao<T> dao;
 	private StringBuilder where = new StringBuilder();
-	protected List<String> params = new ArrayList<String>();
+	// typed values bound by TypedCursorFactory
+	protected List<Object> params = new ArrayList<Object>();
 	protected String orderBy;
+	protected String[] projection;
+	protected int limit = -1;
+	protected int offset;
+	protected Column seekCol;
+	private boolean paged;
 
 	/**
 	 * Constructor requires the {@link SQLiteDao} that will be
@@ -55,6 +65,45 @@ public class Query<T> {
 		this.dao = dao;
 	}
 
+	/*
+	 * Keyset (seek) conditions. Unlike OFFSET, which makes SQLite step
+	 * over every skipped row, a condition on an indexed sort key lets
+	 * each page start directly after the last row of the previous one.
+	 */
+
+	/**
+	 * Adds the condition col > value. If no order has been specified,
+	 * also orders the results by col ascending.
+	 *
+	 * @param col
+	 * @param value
+	 * @return this query
+	 */
+	public Query<T> after(Column col, Double value) {
+		return afterValue(col, value);
+	}
+
+	public Query<T> after(Column col, Integer value) {
+		return afterValue(col, value);
+	}
+
+	public Query<T> after(Column col, Long value) {
+		return afterValue(col, value);
+	}
+
+	public Query<T> after(Column col, String value) {
+		return afterValue(col, value);
+	}
+
+	private Query<T> afterValue(Column col, Object value) {
+		where.append(" AND " + col + ">?");
+		params.add(value);
+		if (orderBy == null) {
+			orderBy = col.asc();
+		}
+		return this;
+	}
+
 	/**
 	 * Executes a query which returns all rows in the entity table
 	 * that match the fields of the example object having values other
@@ -76,16 +125,14 @@ public class Query<T> {
 	 */
 
 	public Query<T> eq(Column colName, Boolean param) {
-		Integer sqlValue = BooleanConverter.GET.toSql(param);
 		where.append(" AND " + colName + "=?");
-		params.add(BooleanConverter.GET.toString(sqlValue));
+		params.add(BooleanConverter.GET.toSql(param));
 		return this;
 	}
 
 	public Query<T> eq(Column colName, Byte param) {
-		Short sqlValue = ByteConverter.GET.toSql(param);
 		where.append(" AND " + colName + "=?");
-		params.add(ByteConverter.GET.toString(sqlValue));
+		params.add(ByteConverter.GET.toSql(param));
 		return this;
 	}
 
@@ -94,42 +141,44 @@ public class Query<T> {
 	}
 
 	public Query<T> eq(Column colName, Character param) {
-		Integer sqlValue = CharConverter.GET.toSql(param);
 		where.append(" AND " + colName + "=?");
-		params.add(CharConverter.GET.toString(sqlValue));
+		params.add(CharConverter.GET.toSql(param));
 		return this;
 	}
 
 	public Query<T> eq(Column colName, Double param) {
-		throw new IllegalArgumentException("Exact match on type double is not supported");
+		where.append(" AND " + colName + "=?");
+		params.add(param);
+		return this;
 	}
 
 	public Query<T> eq(Column colName, Enum param) {
-		String sqlValue = EnumConverter.GET.toSql(param);
 		where.append(" AND " + colName + "=?");
-		params.add(sqlValue);
+		params.add(EnumConverter.GET.toSql(param));
 		return this;
 	}
 
 	public Query<T> eq(Column colName, Float param) {
-		throw new IllegalArgumentException("Exact match on type float is not supported");
+		where.append(" AND " + colName + "=?");
+		params.add(param);
+		return this;
 	}
 
 	public Query<T> eq(Column colName, Integer param) {
 		where.append(" AND " + colName + "=?");
-		params.add(IntegerConverter.GET.toString(param));
+		params.add(param);
 		return this;
 	}
 
 	public Query<T> eq(Column colName, Long param) {
 		where.append(" AND " + colName + "=?");
-		params.add(LongConverter.GET.toString(param));
+		params.add(param);
 		return this;
 	}
 
 	public Query<T> eq(Column colName, Short param) {
 		where.append(" AND " + colName + "=?");
-		params.add(ShortConverter.GET.toString(param));
+		params.add(param);
 		return this;
 	}
 
@@ -139,6 +188,249 @@ public class Query<T> {
 		return this;
 	}
 
+	/*
+	 * Comparisons. Values may be of any type supported by eq() and are
+	 * converted the same way, so a condition on an indexed column can
+	 * be served by the index.
+	 */
+
+	/**
+	 * Adds the condition lo <= col <= hi.
+	 *
+	 * @param col
+	 * @param lo
+	 * @param hi
+	 * @return this query
+	 */
+	public Query<T> between(Column col, Object lo, Object hi) {
+		where.append(" AND " + col + " BETWEEN ? AND ?");
+		params.add(toSqlValue(lo));
+		params.add(toSqlValue(hi));
+		return this;
+	}
+
+	public Query<T> ge(Column col, Object value) {
+		return compare(col, ">=", value);
+	}
+
+	public Query<T> gt(Column col, Object value) {
+		return compare(col, ">", value);
+	}
+
+	public Query<T> le(Column col, Object value) {
+		return compare(col, "<=", value);
+	}
+
+	public Query<T> lt(Column col, Object value) {
+		return compare(col, "<", value);
+	}
+
+	/**
+	 * Adds the condition col <> value, or col IS NOT NULL if value
+	 * is null. Note that in SQL, rows where col is NULL never match
+	 * col <> value.
+	 *
+	 * @param col
+	 * @param value
+	 * @return this query
+	 */
+	public Query<T> ne(Column col, Object value) {
+		if (value == null) {
+			return isNotNull(col);
+		}
+		return compare(col, "<>", value);
+	}
+
+	private Query<T> compare(Column col, String op, Object value) {
+		if (value == null) {
+			throw new IllegalArgumentException("Cannot compare " + col + " to null");
+		}
+		where.append(" AND " + col + op + "?");
+		params.add(toSqlValue(value));
+		return this;
+	}
+
+	public Query<T> isNotNull(Column col) {
+		where.append(" AND " + col + " IS NOT NULL");
+		return this;
+	}
+
+	public Query<T> isNull(Column col) {
+		where.append(" AND " + col + " IS NULL");
+		return this;
+	}
+
+	/**
+	 * Adds the condition col LIKE pattern, where % matches any sequence
+	 * of characters and _ any single character. LIKE is case-insensitive
+	 * for ASCII characters. Only a prefix pattern such as "abc%" can use
+	 * an index, and only one with NOCASE collation.
+	 *
+	 * @param col
+	 * @param pattern
+	 * @return this query
+	 */
+	public Query<T> like(Column col, String pattern) {
+		where.append(" AND " + col + " LIKE ?");
+		params.add(pattern);
+		return this;
+	}
+
+	/**
+	 * Adds a condition which is true when any of the alternatives
+	 * matches. Each alternative is a Query, typically obtained from
+	 * {@link SQLiteDao#load()}, whose conditions are ANDed together
+	 * as usual; only its conditions are used.
+	 *
+	 * <pre>
+	 * dao.load().or(dao.load().lt(Columns.AGE, 13), dao.load().ge(Columns.AGE, 65))
+	 * </pre>
+	 *
+	 * @see #or(List)
+	 * @param first
+	 * @param second
+	 * @return this query
+	 */
+	public Query<T> or(Query<T> first, Query<T> second) {
+		List<Query<T>> alternatives = new ArrayList<Query<T>>();
+		alternatives.add(first);
+		alternatives.add(second);
+		return or(alternatives);
+	}
+
+	/**
+	 * Adds a condition which is true when any of the alternatives
+	 * matches, for any number of alternatives.
+	 *
+	 * @see #or(Query, Query)
+	 * @param alternatives
+	 * @return this query
+	 */
+	public Query<T> or(List<Query<T>> alternatives) {
+		if (alternatives.isEmpty()) {
+			throw new IllegalArgumentException();
+		}
+		StringBuilder or = new StringBuilder();
+		List<Object> orParams = new ArrayList<Object>();
+		for (Query<T> alt : alternatives) {
+			String altWhere = alt.where();
+			if (altWhere == null) {
+				// an alternative without conditions matches every row
+				return this;
+			}
+			or.append((or.length() == 0) ? "(" : " OR (").append(altWhere).append(")");
+			orParams.addAll(alt.params);
+		}
+		where.append(" AND (" + or + ")");
+		params.addAll(orParams);
+		return this;
+	}
+
+	/**
+	 * Builds the SQL for this query once and returns it as an immutable
+	 * {@link CompiledQuery} which can be executed repeatedly, and from
+	 * any thread, with new parameter values. The current parameters
+	 * are bound initially. Later changes to this Query don't affect
+	 * the CompiledQuery.
+	 *
+	 * @return CompiledQuery
+	 */
+	@SuppressWarnings("unchecked")
+	public CompiledQuery<T> compile() {
+		TableHelper<T> th = dao.getTableHelper();
+		Column[] columns = th.getColumns();
+		// name the columns even if all are selected so that their
+		// positions in the Cursor are known in advance
+		String[] selected = projection;
+		if (selected == null) {
+			selected = new String[columns.length];
+			for (int i = 0; i < columns.length; i++) {
+				selected[i] = columns[i].toString();
+			}
+		}
+		int[] cols = new int[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			cols[i] = -1;
+			for (int j = 0; j < selected.length; j++) {
+				if (selected[j].equalsIgnoreCase(columns[i].toString())) {
+					cols[i] = j;
+					break;
+				}
+			}
+		}
+		String sql = SQLiteQueryBuilder.buildQueryString(false, th.getTableName(),
+				selected, where(), null, null, orderBy, limit());
+		return new CompiledQuery<T>(dao, sql, aggregateSql("COUNT(*)"), cols, params());
+	}
+
+	/**
+	 * Deletes the matching rows with a single DELETE statement without
+	 * loading them. When a limit or offset is set, deletes only the rows
+	 * in that page.
+	 *
+	 * @return count of rows deleted
+	 */
+	public int delete() {
+		return dao.executeUpdateDelete("DELETE FROM " + dao.getTableHelper().getTableName()
+				+ whereForUpdate(), params());
+	}
+
+	/**
+	 * Sets col to value in all matching rows with a single UPDATE
+	 * statement without loading them.
+	 *
+	 * @see #update(Column[], Object[])
+	 * @param col
+	 * @param value of any type supported by eq()
+	 * @return count of rows updated
+	 */
+	public int update(Column col, Object value) {
+		return update(new Column[] { col }, new Object[] { value });
+	}
+
+	/**
+	 * Sets each column to the corresponding value in all matching rows
+	 * with a single UPDATE statement without loading them. When a limit
+	 * or offset is set, updates only the rows in that page.
+	 *
+	 * @param cols
+	 * @param values of any type supported by eq()
+	 * @return count of rows updated
+	 */
+	public int update(Column[] cols, Object[] values) {
+		if (cols.length < 1 || cols.length != values.length) {
+			throw new IllegalArgumentException("Expected a value for each column");
+		}
+		StringBuilder sql = new StringBuilder("UPDATE ")
+				.append(dao.getTableHelper().getTableName()).append(" SET ");
+		List<Object> args = new ArrayList<Object>();
+		for (int i = 0; i < cols.length; i++) {
+			sql.append((i > 0) ? "," : "").append(cols[i]).append("=?");
+			args.add(toSqlValue(values[i]));
+		}
+		sql.append(whereForUpdate());
+		args.addAll(params);
+		return dao.executeUpdateDelete(sql.toString(), args.toArray());
+	}
+
+	/**
+	 * Build the WHERE clause of an UPDATE or DELETE. SQLite on Android
+	 * doesn't support LIMIT in these, so a page is selected by ID.
+	 *
+	 * @return String SQL WHERE clause with leading space, or empty
+	 */
+	@SuppressWarnings("unchecked")
+	private String whereForUpdate() {
+		String limit = limit();
+		if (limit != null) {
+			TableHelper<T> th = dao.getTableHelper();
+			String page = SQLiteQueryBuilder.buildQueryString(false, th.getTableName(),
+					new String[] { th.getIdCol().toString() }, where(), null, null, orderBy, limit);
+			return " WHERE " + th.getIdCol() + " IN (" + page + ")";
+		}
+		return (where() == null) ? "" : " WHERE " + where();
+	}
+
 	/**
 	 * Executes the query using the attached DAO.
 	 * Calling method MUST close the Cursor!
@@ -146,7 +438,7 @@ public class Query<T> {
 	 * @return Cursor result
 	 */
 	public Cursor exec() {
-		return dao.query(where(), params(), orderBy);
+		return dao.query(projection, where(), params(), orderBy, limit());
 	}
 
 	/**
@@ -160,6 +452,15 @@ public class Query<T> {
 		return dao.asObject(this.exec());
 	}
 
+	/**
+	 * Adds the condition colName IN (values). SQLite allows at most 999
+	 * parameters per statement, so use {@link SQLiteDao#getAll(java.util.Collection)}
+	 * to fetch many entities by ID.
+	 *
+	 * @param colName
+	 * @param values
+	 * @return this query
+	 */
 	public Query<T> in(Column colName, String... values) {
 		// WHERE colName IN (?,?,?)
 		if (values.length > 0) {
@@ -175,6 +476,70 @@ public class Query<T> {
 		return this;
 	}
 
+	/**
+	 * Executes the query and returns an iterator which maps each row
+	 * only when requested. Closes the Cursor when iteration ends;
+	 * callers that stop early MUST close the iterator.
+	 *
+	 * @see SQLiteDao#asIterator(Cursor)
+	 * @return CloseableIterator over matching entities
+	 */
+	public CloseableIterator<T> iterate() {
+		return dao.asIterator(this.exec());
+	}
+
+	/**
+	 * Executes the query and returns an iterator which populates the same
+	 * reusable instance for every row.
+	 *
+	 * @see SQLiteDao#asIterator(Cursor, Object)
+	 * @param reusable Instance to populate for every row
+	 * @return CloseableIterator over matching entities
+	 */
+	public CloseableIterator<T> iterate(T reusable) {
+		return dao.asIterator(this.exec(), reusable);
+	}
+
+	/**
+	 * Orders the results by col and then by ID so that every row has a
+	 * unique position, and makes col the key used by
+	 * {@link #pageAfter(Object)}. Index col for best performance.
+	 *
+	 * @param col Sort key
+	 * @return this query
+	 */
+	public Query<T> keyset(Column col) {
+		this.seekCol = col;
+		this.orderBy = keysetOrder();
+		return this;
+	}
+
+	/**
+	 * @return ORDER BY clause which matches the seek predicate of
+	 *         {@link #pageAfter(Object)}
+	 */
+	private String keysetOrder() {
+		Column idCol = dao.getTableHelper().getIdCol();
+		if (seekCol == null || seekCol == idCol) {
+			return idCol.asc();
+		}
+		return seekCol.asc() + ", " + idCol.asc();
+	}
+
+	/**
+	 * Limits the number of rows returned.
+	 *
+	 * @param limit max number of rows
+	 * @return this query
+	 */
+	public Query<T> limit(int limit) {
+		if (limit < 0) {
+			throw new IllegalArgumentException("limit must not be negative");
+		}
+		this.limit = limit;
+		return this;
+	}
+
 	/**
 	 * Executes the query and returns the result as a {@link java.util.List}.
 	 *
@@ -185,10 +550,54 @@ public class Query<T> {
 		return dao.asList(this.exec());
 	}
 
+	/**
+	 * Compiles the query and observes its results, which are delivered
+	 * to the callback on the main thread now and again after each
+	 * committed write to the entity's table. Use this instead of polling
+	 * with {@link #list()}, and cancel the returned {@link ObservedQuery}
+	 * when the results are no longer needed.
+	 *
+	 * @see CompiledQuery#observe(Callback)
+	 * @param callback receives each result
+	 * @return ObservedQuery to cancel when done
+	 */
+	public ObservedQuery<T> observe(Callback<List<T>> callback) {
+		return compile().observe(callback);
+	}
+
+	/**
+	 * Skips the first rows of the result. SQLite must still step over
+	 * every skipped row, so prefer {@link #pageAfter(Object)} for deep
+	 * pages.
+	 *
+	 * @param offset number of rows to skip
+	 * @return this query
+	 */
+	public Query<T> offset(int offset) {
+		if (offset < 0) {
+			throw new IllegalArgumentException("offset must not be negative");
+		}
+		this.offset = offset;
+		return this;
+	}
+
+	/**
+	 * Orders the results by the given columns, replacing any order set
+	 * by {@link #keyset(Column)}. Not allowed after
+	 * {@link #pageAfter(Object)}, which requires the keyset order.
+	 *
+	 * @param columns ORDER BY terms, such as from {@link Column#desc()}
+	 * @return this query
+	 */
 	public Query<T> order(String...columns) {
 		if (columns.length < 1) {
 			throw new IllegalArgumentException();
 		}
+		if (paged) {
+			throw new IllegalStateException("pageAfter() requires the keyset order");
+		}
+		// a custom order no longer matches the keyset
+		this.seekCol = null;
 		StringBuilder orderBy = new StringBuilder(columns[0]);
 		for (int i = 1; i < columns.length; i++) {
 			String col = columns[i];
@@ -199,13 +608,250 @@ public class Query<T> {
 	}
 	
 	/**
-	 * Convert the params in each predicate to String[]
-	 * used by the query methods
+	 * Restricts the query to the rows which follow the last row of the
+	 * previous page in the order established by {@link #keyset(Column)},
+	 * or in ID order if no keyset column was specified. Combine with
+	 * {@link #limit(int)} to fetch the next page at a cost proportional
+	 * to the page size rather than its depth.
+	 *
+	 * @param lastSeen Last entity of the previous page
+	 * @return this query
+	 * @throws IllegalStateException if the query has any other order,
+	 *         such as one set by {@link #order(String...)}
+	 */
+	@SuppressWarnings("unchecked")
+	public Query<T> pageAfter(T lastSeen) {
+		TableHelper<T> th = dao.getTableHelper();
+		Column idCol = th.getIdCol();
+		Long lastId = th.getId(lastSeen);
+		String keysetOrder = keysetOrder();
+		if (orderBy == null) {
+			orderBy = keysetOrder;
+		} else if (!orderBy.equals(keysetOrder)) {
+			throw new IllegalStateException("pageAfter() requires the order set by keyset(), not " + orderBy);
+		}
+		paged = true;
+		if (seekCol == null || seekCol == idCol) {
+			where.append(" AND " + idCol + ">?");
+			params.add(lastId);
+		} else {
+			Object lastValue = th.getEditableValues(lastSeen).get(seekCol.toString());
+			if (lastValue == null) {
+				// NULLs sort first
+				where.append(" AND (" + seekCol + " IS NOT NULL OR " + idCol + ">?)");
+				params.add(lastId);
+			} else {
+				where.append(" AND (" + seekCol + ">? OR (" + seekCol + "=? AND " + idCol + ">?))");
+				params.add(lastValue);
+				params.add(lastValue);
+				params.add(lastId);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Restricts the query to the named columns. Entities in the result
+	 * have default values for all other fields, so select only what
+	 * the caller will read. This avoids copying unneeded columns
+	 * (especially BLOBs) into the CursorWindow.
 	 *
-	 * @return String[] parameters
+	 * @param columns
+	 * @return this query
 	 */
-	String[] params() {
-		return params.toArray(new String[params.size()]);
+	public Query<T> select(Column... columns) {
+		if (columns.length < 1) {
+			throw new IllegalArgumentException();
+		}
+		projection = new String[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			projection[i] = columns[i].toString();
+		}
+		return this;
+	}
+
+	/**
+	 * Collect the typed params in each predicate for
+	 * binding by the query methods
+	 *
+	 * @return Object[] parameters
+	 */
+	Object[] params() {
+		return params.toArray();
+	}
+
+	/**
+	 * Converts a value to the type bound by {@link TypedCursorFactory}
+	 * using the same converters as the generated TableHelpers.
+	 *
+	 * @param value
+	 * @return Long, Double, String, byte[], or null
+	 */
+	@SuppressWarnings("rawtypes")
+	static Object toSqlValue(Object value) {
+		if (value == null || value instanceof String || value instanceof Number
+				|| value instanceof byte[]) {
+			return value;
+		} else if (value instanceof Boolean) {
+			return BooleanConverter.GET.toSqlLong((Boolean) value);
+		} else if (value instanceof Character) {
+			return CharConverter.GET.toSqlLong((Character) value);
+		} else if (value instanceof Date) {
+			return DateConverter.GET.toSqlLong((Date) value);
+		} else if (value instanceof Enum) {
+			return ((Enum) value).name();
+		}
+		throw new IllegalArgumentException("Parameters of type "
+				+ value.getClass().getName() + " are not supported");
+	}
+
+	/*
+	 * Aggregates. Each runs as a single-value statement so that no
+	 * row data is copied into a CursorWindow.
+	 */
+
+	/**
+	 * Returns the average value of col over the matching rows, or 0 if
+	 * no rows match.
+	 *
+	 * @param col
+	 * @return double average
+	 */
+	public double avg(Column col) {
+		return aggregateDouble("AVG(" + col + ")");
+	}
+
+	/**
+	 * Returns the number of rows which match the query.
+	 *
+	 * @return long count
+	 */
+	public long count() {
+		return dao.queryForLong(aggregateSql("COUNT(*)"), params());
+	}
+
+	/**
+	 * Returns true if any row matches the query.
+	 *
+	 * @return boolean
+	 */
+	public boolean exists() {
+		String table = dao.getTableHelper().getTableName();
+		String subquery = SQLiteQueryBuilder.buildQueryString(false, table,
+				new String[] { "1" }, where(), null, null, null, (limit() == null) ? "1" : limit());
+		return dao.queryForLong("SELECT EXISTS(" + subquery + ")", params()) != 0;
+	}
+
+	/**
+	 * Returns the maximum value of col over the matching rows, or 0 if
+	 * no rows match. Fractional values are truncated; use
+	 * {@link #maxDouble(Column)} for REAL columns.
+	 *
+	 * @param col
+	 * @return long max
+	 */
+	public long max(Column col) {
+		return dao.queryForLong(aggregateSql("MAX(" + col + ")"), params());
+	}
+
+	/**
+	 * Returns the maximum value of a REAL column over the matching
+	 * rows, or 0 if no rows match.
+	 *
+	 * @param col
+	 * @return double max
+	 */
+	public double maxDouble(Column col) {
+		return aggregateDouble("MAX(" + col + ")");
+	}
+
+	/**
+	 * Returns the minimum value of col over the matching rows, or 0 if
+	 * no rows match. Fractional values are truncated; use
+	 * {@link #minDouble(Column)} for REAL columns.
+	 *
+	 * @param col
+	 * @return long min
+	 */
+	public long min(Column col) {
+		return dao.queryForLong(aggregateSql("MIN(" + col + ")"), params());
+	}
+
+	/**
+	 * Returns the minimum value of a REAL column over the matching
+	 * rows, or 0 if no rows match.
+	 *
+	 * @param col
+	 * @return double min
+	 */
+	public double minDouble(Column col) {
+		return aggregateDouble("MIN(" + col + ")");
+	}
+
+	/**
+	 * Returns the sum of col over the matching rows, or 0 if no rows
+	 * match. Fractional values are truncated; use
+	 * {@link #sumDouble(Column)} for REAL columns.
+	 *
+	 * @param col
+	 * @return long sum
+	 */
+	public long sum(Column col) {
+		return dao.queryForLong(aggregateSql("SUM(" + col + ")"), params());
+	}
+
+	/**
+	 * Returns the sum of a REAL column over the matching rows, or 0 if
+	 * no rows match.
+	 *
+	 * @param col
+	 * @return double sum
+	 */
+	public double sumDouble(Column col) {
+		return aggregateDouble("SUM(" + col + ")");
+	}
+
+	/**
+	 * Runs an aggregate whose result may be fractional. The value is
+	 * read as a String, as simpleQueryForLong() would truncate it.
+	 * Aggregates over no rows are NULL, returned as 0.
+	 */
+	private double aggregateDouble(String expr) {
+		String value = dao.queryForString(aggregateSql(expr), params());
+		return (value == null) ? 0 : Double.parseDouble(value);
+	}
+
+	/**
+	 * Build a statement which applies the aggregate expression to the
+	 * matching rows. When a LIMIT or OFFSET is set, the aggregate runs
+	 * over only the rows in that page.
+	 *
+	 * @param expr aggregate expression such as COUNT(*)
+	 * @return String SQL
+	 */
+	private String aggregateSql(String expr) {
+		String table = dao.getTableHelper().getTableName();
+		String limit = limit();
+		if (limit == null) {
+			return SQLiteQueryBuilder.buildQueryString(false, table,
+					new String[] { expr }, where(), null, null, null, null);
+		}
+		String page = SQLiteQueryBuilder.buildQueryString(false, table,
+				null, where(), null, null, orderBy, limit);
+		return "SELECT " + expr + " FROM (" + page + ")";
+	}
+
+	/**
+	 * Build the LIMIT clause, if any
+	 *
+	 * @return String SQL LIMIT clause
+	 */
+	String limit() {
+		if (limit < 0 && offset == 0) {
+			return null;
+		}
+		// SQLite requires a LIMIT with OFFSET, -1 means no limit
+		return (offset > 0) ? limit + " OFFSET " + offset : String.valueOf(limit);
 	}
 
 	/**
@@ -21,7 +21,7 @@ import com.turbomanage.storm.types.TypeConverter.SqlType;
 
 
 @Converter(forTypes = { boolean.class, Boolean.class }, bindType = BindType.INT, sqlType = SqlType.INTEGER)
-public class BooleanConverter extends TypeConverter<Boolean,Integer> {
+public class BooleanConverter extends TypeConverter<Boolean,Integer> implements LongTypeConverter<Boolean> {
 
 	public static final BooleanConverter GET = new BooleanConverter();
 
@@ -46,4 +46,14 @@ public class BooleanConverter extends TypeConverter<Boolean,Integer> {
 		return Integer.valueOf(strValue);
 	}
 
+	@Override
+	public long toSqlLong(Boolean javaValue) {
+		return javaValue.booleanValue() ? 1 : 0;
+	}
+
+	@Override
+	public Boolean fromSqlLong(long sqlValue) {
+		return sqlValue == 0 ? Boolean.FALSE : Boolean.TRUE;
+	}
+
 }
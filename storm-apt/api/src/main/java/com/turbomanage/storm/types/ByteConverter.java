@@ -20,7 +20,7 @@ import com.turbomanage.storm.types.TypeConverter.BindType;
 import com.turbomanage.storm.types.TypeConverter.SqlType;
 
 @Converter(forTypes = { byte.class, Byte.class }, bindType = BindType.SHORT, sqlType = SqlType.INTEGER)
-public class ByteConverter extends TypeConverter<Byte,Short> {
+public class ByteConverter extends TypeConverter<Byte,Short> implements LongTypeConverter<Byte> {
 
 	public static final ByteConverter GET = new ByteConverter();
 
@@ -45,4 +45,14 @@ public class ByteConverter extends TypeConverter<Byte,Short> {
 		return Short.valueOf(strValue);
 	}
 
+	@Override
+	public long toSqlLong(Byte javaValue) {
+		return javaValue.byteValue();
+	}
+
+	@Override
+	public Byte fromSqlLong(long sqlValue) {
+		return (byte) sqlValue;
+	}
+
 }
@@ -20,7 +20,7 @@ import com.turbomanage.storm.types.TypeConverter.BindType;
 import com.turbomanage.storm.types.TypeConverter.SqlType;
 
 @Converter(forTypes = { char.class, Character.class }, bindType = BindType.INT, sqlType = SqlType.INTEGER)
-public class CharConverter extends TypeConverter<Character,Integer> {
+public class CharConverter extends TypeConverter<Character,Integer> implements LongTypeConverter<Character> {
 
 	public static final CharConverter GET = new CharConverter();
 
@@ -45,4 +45,14 @@ public class CharConverter extends TypeConverter<Character,Integer> {
 		return Integer.valueOf(strValue);
 	}
 
+	@Override
+	public long toSqlLong(Character javaValue) {
+		return javaValue.charValue();
+	}
+
+	@Override
+	public Character fromSqlLong(long sqlValue) {
+		return (char) sqlValue;
+	}
+
 }
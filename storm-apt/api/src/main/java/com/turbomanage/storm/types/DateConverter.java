@@ -22,7 +22,7 @@ import com.turbomanage.storm.types.TypeConverter.BindType;
 import com.turbomanage.storm.types.TypeConverter.SqlType;
 
 @Converter(forTypes = { Date.class }, bindType = BindType.LONG, sqlType = SqlType.INTEGER)
-public class DateConverter extends TypeConverter<Date, Long> {
+public class DateConverter extends TypeConverter<Date, Long> implements LongTypeConverter<Date> {
 
 	public static final DateConverter GET = new DateConverter();
 
@@ -46,4 +46,14 @@ public class DateConverter extends TypeConverter<Date, Long> {
 		return Long.valueOf(strValue);
 	}
 
+	@Override
+	public long toSqlLong(Date javaValue) {
+		return javaValue.getTime();
+	}
+
+	@Override
+	public Date fromSqlLong(long sqlValue) {
+		return new Date(sqlValue);
+	}
+
 }
@@ -20,7 +20,7 @@ import com.turbomanage.storm.types.TypeConverter.BindType;
 import com.turbomanage.storm.types.TypeConverter.SqlType;
 
 @Converter(forTypes = { double.class, Double.class }, bindType = BindType.DOUBLE, sqlType = SqlType.REAL)
-public class DoubleConverter extends TypeConverter<Double,Double> {
+public class DoubleConverter extends TypeConverter<Double,Double> implements DoubleTypeConverter<Double> {
 
 	public static final DoubleConverter GET = new DoubleConverter();
 
@@ -46,4 +46,15 @@ public class DoubleConverter extends TypeConverter<Double,Double> {
 		// Don't use Long.toHexString! Long.parseLong doesn't understand 2's complement
 		return (sqlValue == null) ? null : Long.toString(Double.doubleToLongBits(sqlValue), 16);
 	}
+
+	@Override
+	public double toSqlDouble(Double javaValue) {
+		return javaValue.doubleValue();
+	}
+
+	@Override
+	public Double fromSqlDouble(double sqlValue) {
+		return sqlValue;
+	}
+
 }
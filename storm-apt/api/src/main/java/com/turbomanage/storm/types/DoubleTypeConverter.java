@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright 2012 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.turbomanage.storm.types;
+
+/**
+ * Optional interface for a {@link TypeConverter} whose SQL type is
+ * REAL. Generated code binds and reads such values as a primitive
+ * double, which avoids allocating a wrapper for every value. Callers
+ * handle nulls, so implementations are never passed null.
+ *
+ * @author David M. Chandler
+ *
+ * @param <J> native Java type
+ */
+public interface DoubleTypeConverter<J> {
+
+	/**
+	 * Convert a non-null Java value to a double.
+	 *
+	 * @param javaValue
+	 * @return
+	 */
+	double toSqlDouble(J javaValue);
+
+	/**
+	 * Convert a double obtained from {@link android.database.Cursor#getDouble(int)}
+	 * to its Java type.
+	 *
+	 * @param sqlValue
+	 * @return
+	 */
+	J fromSqlDouble(double sqlValue);
+
+}
@@ -21,7 +21,7 @@ import com.turbomanage.storm.types.TypeConverter.SqlType;
 
 
 @Converter(forTypes = { float.class, Float.class }, bindType = BindType.FLOAT, sqlType = SqlType.REAL)
-public class FloatConverter extends TypeConverter<Float,Float> {
+public class FloatConverter extends TypeConverter<Float,Float> implements DoubleTypeConverter<Float> {
 
 	public static final FloatConverter GET = new FloatConverter();
 
@@ -40,4 +40,14 @@ public class FloatConverter extends TypeConverter<Float,Float> {
 		return Float.valueOf(strValue);
 	}
 
+	@Override
+	public double toSqlDouble(Float javaValue) {
+		return javaValue.floatValue();
+	}
+
+	@Override
+	public Float fromSqlDouble(double sqlValue) {
+		return (float) sqlValue;
+	}
+
 }
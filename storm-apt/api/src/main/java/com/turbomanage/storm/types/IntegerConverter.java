@@ -20,7 +20,7 @@ import com.turbomanage.storm.types.TypeConverter.BindType;
 import com.turbomanage.storm.types.TypeConverter.SqlType;
 
 @Converter(forTypes = { int.class, java.lang.Integer.class }, bindType = BindType.INT, sqlType = SqlType.INTEGER)
-public class IntegerConverter extends TypeConverter<Integer, Integer> {
+public class IntegerConverter extends TypeConverter<Integer, Integer> implements LongTypeConverter<Integer> {
 
 	public static final IntegerConverter GET = new IntegerConverter();
 
@@ -39,4 +39,14 @@ public class IntegerConverter extends TypeConverter<Integer, Integer> {
 		return Integer.valueOf(strValue);
 	}
 
+	@Override
+	public long toSqlLong(Integer javaValue) {
+		return javaValue.intValue();
+	}
+
+	@Override
+	public Integer fromSqlLong(long sqlValue) {
+		return (int) sqlValue;
+	}
+
 }
@@ -20,7 +20,7 @@ import com.turbomanage.storm.types.TypeConverter.BindType;
 import com.turbomanage.storm.types.TypeConverter.SqlType;
 
 @Converter(forTypes = { long.class, Long.class }, bindType = BindType.LONG, sqlType = SqlType.INTEGER)
-public class LongConverter extends TypeConverter<Long,Long> {
+public class LongConverter extends TypeConverter<Long,Long> implements LongTypeConverter<Long> {
 
 	public static final LongConverter GET = new LongConverter();
 
@@ -39,4 +39,14 @@ public class LongConverter extends TypeConverter<Long,Long> {
 		return Long.valueOf(strValue);
 	}
 
+	@Override
+	public long toSqlLong(Long javaValue) {
+		return javaValue.longValue();
+	}
+
+	@Override
+	public Long fromSqlLong(long sqlValue) {
+		return sqlValue;
+	}
+
 }
@@ -20,7 +20,7 @@ import com.turbomanage.storm.types.TypeConverter.BindType;
 import com.turbomanage.storm.types.TypeConverter.SqlType;
 
 @Converter(forTypes = { short.class, Short.class }, bindType = BindType.SHORT, sqlType = SqlType.INTEGER)
-public class ShortConverter extends TypeConverter<Short, Short> {
+public class ShortConverter extends TypeConverter<Short, Short> implements LongTypeConverter<Short> {
 
 	public static final ShortConverter GET = new ShortConverter();
 
@@ -39,4 +39,14 @@ public class ShortConverter extends TypeConverter<Short, Short> {
 		return Short.valueOf(strValue);
 	}
 
+	@Override
+	public long toSqlLong(Short javaValue) {
+		return javaValue.shortValue();
+	}
+
+	@Override
+	public Short fromSqlLong(long sqlValue) {
+		return (short) sqlValue;
+	}
+
 }
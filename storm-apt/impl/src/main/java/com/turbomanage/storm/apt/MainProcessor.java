@@ -37,7 +37,9 @@ import com.turbomanage.storm.apt.converter.ConverterProcessor;
 import com.turbomanage.storm.apt.database.DatabaseFactoryTemplate;
 import com.turbomanage.storm.apt.database.DatabaseModel;
 import com.turbomanage.storm.apt.database.DatabaseProcessor;
+import com.turbomanage.storm.apt.entity.AsyncEntityDaoTemplate;
 import com.turbomanage.storm.apt.entity.EntityDaoTemplate;
+import com.turbomanage.storm.apt.entity.EntityModel;
 import com.turbomanage.storm.apt.entity.EntityProcessor;
 import com.turbomanage.storm.apt.entity.TableHelperTemplate;
 
@@ -112,9 +114,13 @@ public class MainProcessor extends AbstractProcessor {
 			try {
 				ClassProcessor eproc = new EntityProcessor(element, stormEnv);
 				eproc.populateModel();
+				stormEnv.updateSchemaHistory((EntityModel) eproc.getModel());
 				// Generate EntityDao
 				EntityDaoTemplate daoTemplate = new EntityDaoTemplate(eproc.getModel());
 				processTemplate(processingEnv, cfg, daoTemplate);
+				// Generate AsyncEntityDao
+				AsyncEntityDaoTemplate asyncDaoTemplate = new AsyncEntityDaoTemplate(eproc.getModel());
+				processTemplate(processingEnv, cfg, asyncDaoTemplate);
 				// Generate EntityTable
 				TableHelperTemplate tableHelperTemplate = new TableHelperTemplate(eproc.getModel());
 				processTemplate(processingEnv, cfg, tableHelperTemplate);
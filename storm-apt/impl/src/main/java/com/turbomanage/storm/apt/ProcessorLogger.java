@@ -73,6 +73,10 @@ public class ProcessorLogger {
         warning(msg, null);
     }
 
+    public void error(String msg) {
+        log(Kind.ERROR, msg, null);
+    }
+
     public void error(String msg, Exception ex, Element elm) {
         log(Kind.ERROR, formatErrorMessage(msg, ex), elm);
 
@@ -34,6 +34,8 @@ import javax.tools.StandardLocation;
 
 import com.turbomanage.storm.apt.converter.ConverterModel;
 import com.turbomanage.storm.apt.database.DatabaseModel;
+import com.turbomanage.storm.apt.entity.EntityModel;
+import com.turbomanage.storm.apt.entity.SchemaHistory;
 import com.turbomanage.storm.exception.TypeNotSupportedException;
 import com.turbomanage.storm.types.BlobConverter;
 import com.turbomanage.storm.types.BooleanConverter;
@@ -61,11 +63,14 @@ public class StormEnvironment {
 	public static final String END_DATABASE = ":DB_END";
 	public static final String BEGIN_CONVERTERS = ":CONV_START";
 	public static final String END_CONVERTERS = ":CONV_END";
+	public static final String BEGIN_SCHEMA = ":SCHEMA_START";
+	public static final String END_SCHEMA = ":SCHEMA_END";
 	private static final String ENV_FILE = "stormEnv";
 	private ProcessorLogger logger;
 	private Map<String,DatabaseModel> dbModels = new TreeMap<String,DatabaseModel>();
 	private List<ConverterModel> converters = new ArrayList<ConverterModel>();
 	private Map<String, ConverterModel> typeMap = new HashMap<String, ConverterModel>();
+	private Map<String, SchemaHistory> schemas = new TreeMap<String, SchemaHistory>();
 
 	StormEnvironment(ProcessorLogger logger) {
 		this.logger = logger;
@@ -143,9 +148,14 @@ public class StormEnvironment {
 				line = reader.readLine();
 			}
 			line = reader.readLine();
-			while (line != null && line.startsWith(BEGIN_DATABASE)) {
-				DatabaseModel dbModel = DatabaseModel.readFromIndex(reader, logger);
-				this.addDatabase(dbModel);
+			while (line != null) {
+				if (line.startsWith(BEGIN_DATABASE)) {
+					DatabaseModel dbModel = DatabaseModel.readFromIndex(reader, logger);
+					this.addDatabase(dbModel);
+				} else if (line.startsWith(BEGIN_SCHEMA)) {
+					SchemaHistory history = SchemaHistory.readFromIndex(reader);
+					schemas.put(history.getTableHelperClass(), history);
+				}
 				line = reader.readLine();
 			}
 			reader.close();
@@ -181,12 +191,46 @@ public class StormEnvironment {
 			for (DatabaseModel dbModel : dbModels.values()) {
 				dbModel.writeToIndex(out);
 			}
+			// Dump schema history
+			for (SchemaHistory history : schemas.values()) {
+				history.writeToIndex(out);
+			}
 			out.close();
 		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
+	/**
+	 * Records the entity's columns at the current database version and
+	 * populates the model with the ALTER TABLE statements for each version
+	 * step in the table's history. The history is kept in the index, so
+	 * it only covers versions compiled since the index was last deleted.
+	 * A missing history fails the build unless other tables have one,
+	 * which means this table is new, or the database doesn't require it.
+	 *
+	 * @param em
+	 */
+	void updateSchemaHistory(EntityModel em) {
+		SchemaHistory history = schemas.get(em.getTableHelperClass());
+		if (history == null) {
+			history = new SchemaHistory(em.getTableHelperClass());
+			schemas.put(history.getTableHelperClass(), history);
+		}
+		boolean newTable = false;
+		for (SchemaHistory other : schemas.values()) {
+			if (other != history && other.hasVersionBefore(em.getDbVersion())) {
+				// the index survived, so this table was added since
+				newTable = true;
+				break;
+			}
+		}
+		history.checkEarlierVersion(em.getDbVersion(), em.getTableName(),
+				!newTable && em.isSchemaHistoryRequired(), logger);
+		history.putVersion(em.getDbVersion(), SchemaHistory.getColumnDefs(em));
+		em.setAlterSteps(history.getAlterSteps(em.getTableName(), logger));
+	}
+
 	/**
 	 * Register a custom {@link TypeConverter} for a given data (field) type.
 	 * This method is called at compile time by the annotation processor. In
@@ -24,6 +24,8 @@ import com.turbomanage.storm.api.Converter;
 import com.turbomanage.storm.apt.ClassModel;
 import com.turbomanage.storm.apt.ProcessorLogger;
 import com.turbomanage.storm.csv.CsvUtils;
+import com.turbomanage.storm.types.DoubleTypeConverter;
+import com.turbomanage.storm.types.LongTypeConverter;
 import com.turbomanage.storm.types.TypeConverter;
 import com.turbomanage.storm.types.TypeConverter.BindType;
 import com.turbomanage.storm.types.TypeConverter.SqlType;
@@ -35,6 +37,7 @@ public class ConverterModel extends ClassModel {
 	private BindType bindType;
 	private SqlType sqlType;
 	private boolean builtIn;
+	private BindType primitiveType;
 
 	/**
 	 * Construct from attributes provided by the annotation processor
@@ -61,6 +64,11 @@ public class ConverterModel extends ClassModel {
 	public ConverterModel(TypeConverter converter) {
 		this.builtIn = true;
 		this.parseQualifiedClassName(converter.getClass().getCanonicalName());
+		if (converter instanceof LongTypeConverter) {
+			this.primitiveType = BindType.LONG;
+		} else if (converter instanceof DoubleTypeConverter) {
+			this.primitiveType = BindType.DOUBLE;
+		}
 		Converter annotation = converter.getClass().getAnnotation(Converter.class);
 		this.bindType = annotation.bindType();
 		this.sqlType = annotation.sqlType();
@@ -71,6 +79,21 @@ public class ConverterModel extends ClassModel {
 		}
 	}
 
+	/**
+	 * Returns {@link BindType#LONG} if the converter implements
+	 * {@link LongTypeConverter} or {@link BindType#DOUBLE} if it implements
+	 * {@link DoubleTypeConverter}, else null.
+	 *
+	 * @return BindType or null
+	 */
+	public BindType getPrimitiveType() {
+		return primitiveType;
+	}
+
+	public void setPrimitiveType(BindType primitiveType) {
+		this.primitiveType = primitiveType;
+	}
+
 	public String[] getConvertibleTypes() {
 		return convertibleTypes;
 	}
@@ -89,7 +112,12 @@ public class ConverterModel extends ClassModel {
 		BindType bindType = BindType.valueOf(props.get("bindType"));
 		SqlType sqlType = SqlType.valueOf(props.get("sqlType"));
 		String[] convertibleTypes = props.get("convertibleTypes").split(TYPE_DELIMITER);
-		return new ConverterModel(converterClass, convertibleTypes, bindType, sqlType);
+		ConverterModel cm = new ConverterModel(converterClass, convertibleTypes, bindType, sqlType);
+		// absent from indexes written by older versions
+		if (props.containsKey("primitiveType")) {
+			cm.setPrimitiveType(BindType.valueOf(props.get("primitiveType")));
+		}
+		return cm;
 	}
 
 	public void writeToIndex(PrintWriter out) {
@@ -106,6 +134,9 @@ public class ConverterModel extends ClassModel {
 		map.put("bindType", this.bindType.name());
 		map.put("sqlType", this.sqlType.name());
 		map.put("convertibleTypes", typeList);
+		if (this.primitiveType != null) {
+			map.put("primitiveType", this.primitiveType.name());
+		}
 		out.println(CsvUtils.mapToCsv(map));
 	}
 
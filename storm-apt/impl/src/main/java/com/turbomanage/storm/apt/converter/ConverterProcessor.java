@@ -23,10 +23,16 @@ import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.AnnotationValue;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
 
 import com.turbomanage.storm.api.Converter;
 import com.turbomanage.storm.apt.ClassProcessor;
 import com.turbomanage.storm.apt.StormEnvironment;
+import com.turbomanage.storm.types.DoubleTypeConverter;
+import com.turbomanage.storm.types.LongTypeConverter;
 import com.turbomanage.storm.types.TypeConverter.BindType;
 import com.turbomanage.storm.types.TypeConverter.SqlType;
 
@@ -65,6 +71,11 @@ public class ConverterProcessor extends ClassProcessor {
 							new ConverterTypeAnnotationValuesVisitor(),
 							stormEnv.getLogger());
 					this.cm = new ConverterModel(converterClass, types, bindType, sqlType);
+					if (implementsInterface(this.typeElement, LongTypeConverter.class.getName())) {
+						this.cm.setPrimitiveType(BindType.LONG);
+					} else if (implementsInterface(this.typeElement, DoubleTypeConverter.class.getName())) {
+						this.cm.setPrimitiveType(BindType.DOUBLE);
+					}
 					if (!stormEnv.addConverter(this.cm))
 						stormEnv.getLogger()
 						.error("Converter already registered for type "
@@ -74,4 +85,28 @@ public class ConverterProcessor extends ClassProcessor {
 		}
 	}
 
+	/**
+	 * Walks the superclasses of a type looking for an interface.
+	 *
+	 * @param type
+	 * @param iface Qualified name of the interface
+	 * @return true if the type implements the interface
+	 */
+	private boolean implementsInterface(TypeElement type, String iface) {
+		while (type != null) {
+			for (TypeMirror t : type.getInterfaces()) {
+				TypeElement el = (TypeElement) ((DeclaredType) t).asElement();
+				if (el.getQualifiedName().contentEquals(iface)) {
+					return true;
+				}
+			}
+			TypeMirror superclass = type.getSuperclass();
+			if (superclass.getKind() != TypeKind.DECLARED) {
+				return false;
+			}
+			type = (TypeElement) ((DeclaredType) superclass).asElement();
+		}
+		return false;
+	}
+
 }
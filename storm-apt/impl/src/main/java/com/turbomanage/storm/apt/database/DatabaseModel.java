@@ -33,6 +33,10 @@ public class DatabaseModel extends ClassModel {
 
 	private String dbName;
 	private int dbVersion;
+	private String journalMode = "DEFAULT";
+	private String synchronous = "DEFAULT";
+	private int readerConnections;
+	private boolean schemaHistoryRequired = true;
 	private List<EntityModel> entities = new ArrayList<EntityModel>();
 	private List<String> tableHelpers = new ArrayList<String>();
 
@@ -59,6 +63,38 @@ public class DatabaseModel extends ClassModel {
 		this.dbVersion = dbVersion;
 	}
 
+	public String getJournalMode() {
+		return journalMode;
+	}
+
+	void setJournalMode(String journalMode) {
+		this.journalMode = journalMode;
+	}
+
+	public String getSynchronous() {
+		return synchronous;
+	}
+
+	void setSynchronous(String synchronous) {
+		this.synchronous = synchronous;
+	}
+
+	public int getReaderConnections() {
+		return readerConnections;
+	}
+
+	void setReaderConnections(int readerConnections) {
+		this.readerConnections = readerConnections;
+	}
+
+	public boolean isSchemaHistoryRequired() {
+		return schemaHistoryRequired;
+	}
+
+	void setSchemaHistoryRequired(boolean schemaHistoryRequired) {
+		this.schemaHistoryRequired = schemaHistoryRequired;
+	}
+
 	public String getDbHelperClass() {
 		return getQualifiedClassName();
 	}
@@ -114,6 +150,19 @@ public class DatabaseModel extends ClassModel {
 		int dbVersion = Integer.parseInt(props.get("dbVersion"));
 		String helperClass = props.get("helperClass");
 		DatabaseModel dbModel = new DatabaseModel(dbName, dbVersion, helperClass);
+		// absent from indexes written by older versions
+		if (props.containsKey("journalMode")) {
+			dbModel.setJournalMode(props.get("journalMode"));
+		}
+		if (props.containsKey("synchronous")) {
+			dbModel.setSynchronous(props.get("synchronous"));
+		}
+		if (props.containsKey("readerConnections")) {
+			dbModel.setReaderConnections(Integer.parseInt(props.get("readerConnections")));
+		}
+		if (props.containsKey("requireSchemaHistory")) {
+			dbModel.setSchemaHistoryRequired(Boolean.parseBoolean(props.get("requireSchemaHistory")));
+		}
 		// read TableHelpers
 		List<String> tables = new ArrayList<String>();
 		String th = reader.readLine();
@@ -137,6 +186,10 @@ public class DatabaseModel extends ClassModel {
 		dbMap.put("dbName", this.getDbName());
 		dbMap.put("dbVersion", String.valueOf(this.getDbVersion()));
 		dbMap.put("helperClass", this.getQualifiedClassName());
+		dbMap.put("journalMode", this.getJournalMode());
+		dbMap.put("synchronous", this.getSynchronous());
+		dbMap.put("readerConnections", String.valueOf(this.getReaderConnections()));
+		dbMap.put("requireSchemaHistory", String.valueOf(this.isSchemaHistoryRequired()));
 		String dbInfo = CsvUtils	.mapToCsv(dbMap);
 		out.println(dbInfo);
 		// write TableHelpers
@@ -52,6 +52,13 @@ public class DatabaseProcessor extends ClassProcessor {
 			databaseModel = new DatabaseModel(dba.name(), dba.version(), getQualifiedClassName());
 			super.populateModel();
 		}
+		if (dba.readerConnections() < 0) {
+			abort("readerConnections must not be negative");
+		}
+		databaseModel.setJournalMode(dba.journalMode().name());
+		databaseModel.setSynchronous(dba.synchronous().name());
+		databaseModel.setReaderConnections(dba.readerConnections());
+		databaseModel.setSchemaHistoryRequired(dba.requireSchemaHistory());
 	}
 
 	private void checkDbName(String dbName) {
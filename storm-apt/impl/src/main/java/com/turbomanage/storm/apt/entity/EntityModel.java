@@ -15,6 +15,9 @@
  ******************************************************************************/
 package com.turbomanage.storm.apt.entity;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.turbomanage.storm.SQLiteDao;
 import com.turbomanage.storm.api.Entity;
 import com.turbomanage.storm.apt.BaseDaoModel;
@@ -31,10 +34,16 @@ public class EntityModel extends ClassModel {
 	private DatabaseModel dbModel;
 	private String dbName;
 	private String tableName;
+	private List<IndexModel> indexes = new ArrayList<IndexModel>();
+	private int cacheSize;
+	private String cacheRefType;
+	private List<SchemaHistory.AlterStep> alterSteps = new ArrayList<SchemaHistory.AlterStep>();
 
 	public EntityModel(Entity entity) {
 		this.setTableName(entity.name());
 		this.setDbName(entity.dbName());
+		this.cacheSize = entity.cacheSize();
+		this.cacheRefType = entity.cacheRefType().name();
 	}
 	
 	public EntityModel(javax.persistence.Entity entity) {
@@ -49,6 +58,10 @@ public class EntityModel extends ClassModel {
 		return this.getEntityName() + "Dao";
 	}
 	
+	public String getAsyncDaoName() {
+		return "Async" + this.getDaoName();
+	}
+
 	public String getDaoPackage() {
 		return this.getPackage() + ".dao";
 	}
@@ -76,6 +89,14 @@ public class EntityModel extends ClassModel {
 		this.addImport(daoClass.getQualifiedClassName());
 	}
 
+	public int getDbVersion() {
+		return dbModel.getDbVersion();
+	}
+
+	public boolean isSchemaHistoryRequired() {
+		return dbModel.isSchemaHistoryRequired();
+	}
+
 	void setDatabase(DatabaseModel dbModel) {
 		this.dbModel = dbModel;
 		dbModel.addEntity(this);
@@ -112,6 +133,36 @@ public class EntityModel extends ClassModel {
 		idField.setColName("_id");
 	}
 
+	public List<IndexModel> getIndexes() {
+		return indexes;
+	}
+
+	void addIndex(IndexModel index) {
+		indexes.add(index);
+	}
+
+	/**
+	 * @return max entities in the cache or 0 if not cached
+	 */
+	public int getCacheSize() {
+		return cacheSize;
+	}
+
+	public String getCacheRefType() {
+		return cacheRefType;
+	}
+
+	/**
+	 * @return ALTER TABLE statements for each version in the schema history
+	 */
+	public List<SchemaHistory.AlterStep> getAlterSteps() {
+		return alterSteps;
+	}
+
+	public void setAlterSteps(List<SchemaHistory.AlterStep> alterSteps) {
+		this.alterSteps = alterSteps;
+	}
+
 	public String getDbName() {
 		return dbName;
 	}
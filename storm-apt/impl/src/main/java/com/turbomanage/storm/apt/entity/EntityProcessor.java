@@ -18,6 +18,8 @@ package com.turbomanage.storm.apt.entity;
 import com.turbomanage.storm.SQLiteDao;
 import com.turbomanage.storm.api.Entity;
 import com.turbomanage.storm.api.Id;
+import com.turbomanage.storm.api.Index;
+import com.turbomanage.storm.api.Indexes;
 import com.turbomanage.storm.apt.BaseDaoModel;
 import com.turbomanage.storm.apt.ClassProcessor;
 import com.turbomanage.storm.apt.SqlUtil;
@@ -68,11 +70,15 @@ public class EntityProcessor extends ClassProcessor {
         }
         super.populateModel();
         this.entityModel.addImport(getQualifiedClassName());
+        if (entityModel.getCacheSize() < 0) {
+            abort("cacheSize must not be negative");
+        }
         validateTableName(entityModel.getTableName());
         chooseDatabase(entityModel.getDbName());
         chooseBaseDao(entity);
         readFields(typeElement);
         inspectId();
+        readIndexes();
         // TODO Verify >1 column. If only ID col, insert() will fail
     }
 
@@ -160,6 +166,72 @@ public class EntityProcessor extends ClassProcessor {
         }
     }
 
+    /**
+     * Adds an {@link IndexModel} for each @Index on the entity class or
+     * its fields and resolves the indexed field names to columns.
+     */
+    private void readIndexes() {
+        Index index = typeElement.getAnnotation(Index.class);
+        if (index != null) {
+            addIndex(index, null, typeElement);
+        }
+        Indexes indexes = typeElement.getAnnotation(Indexes.class);
+        if (indexes != null) {
+            for (Index i : indexes.value()) {
+                addIndex(i, null, typeElement);
+            }
+        }
+        for (Element child : typeElement.getEnclosedElements()) {
+            index = child.getAnnotation(Index.class);
+            if (index != null && ElementKind.FIELD.equals(child.getKind())) {
+                addIndex(index, child.getSimpleName().toString(), child);
+            }
+        }
+    }
+
+    private void addIndex(Index index, String fieldName, Element el) {
+        String[] fieldNames = index.columns();
+        if (fieldNames.length == 0) {
+            if (fieldName == null) {
+                abort("@Index on a class must name its columns", el);
+            }
+            fieldNames = new String[] { fieldName };
+        }
+        IndexModel indexModel = new IndexModel(index.name(), fieldNames, index.unique(), index.where());
+        for (String name : indexModel.getFieldNames()) {
+            String[] parts = name.split("\\s+");
+            FieldModel f = getFieldByName(parts[0]);
+            if (f == null) {
+                abort("@Index refers to unknown field " + parts[0], el);
+            } else if (parts.length == 2 && ("ASC".equalsIgnoreCase(parts[1]) || "DESC".equalsIgnoreCase(parts[1]))) {
+                indexModel.addColumn(f.getColName() + " " + parts[1].toUpperCase());
+            } else if (parts.length == 1) {
+                indexModel.addColumn(f.getColName());
+            } else {
+                abort("Invalid @Index column " + name, el);
+            }
+        }
+        indexModel.resolveName(entityModel.getTableName());
+        if (!SqlUtil.isValidIdentifier(indexModel.getName())) {
+            abort(indexModel.getName() + " is not a valid index name.", el);
+        }
+        for (IndexModel existing : entityModel.getIndexes()) {
+            if (existing.getName().equalsIgnoreCase(indexModel.getName())) {
+                abort("Duplicate @Index " + indexModel.getName(), el);
+            }
+        }
+        entityModel.addIndex(indexModel);
+    }
+
+    private FieldModel getFieldByName(String fieldName) {
+        for (FieldModel f : entityModel.getFields()) {
+            if (f.getFieldName().equals(fieldName)) {
+                return f;
+            }
+        }
+        return null;
+    }
+
     /**
      * Verifies that the entity has exactly one id field of type long.
      */
@@ -31,6 +31,7 @@
 package com.turbomanage.storm.apt.entity;
 
 import com.turbomanage.storm.apt.converter.ConverterModel;
+import com.turbomanage.storm.types.TypeConverter.BindType;
 import com.turbomanage.storm.types.TypeConverter.SqlType;
 
 /**
@@ -108,6 +109,26 @@ public class FieldModel {
 		return bindType.charAt(0) + bindType.toLowerCase().substring(1);
 	}
 
+	/**
+	 * True if the field's converter binds and reads a primitive long.
+	 * Never called at runtime.
+	 *
+	 * @return boolean
+	 */
+	public boolean isSqlLong() {
+		return BindType.LONG.equals(getConverter().getPrimitiveType());
+	}
+
+	/**
+	 * True if the field's converter binds and reads a primitive double.
+	 * Never called at runtime.
+	 *
+	 * @return boolean
+	 */
+	public boolean isSqlDouble() {
+		return BindType.DOUBLE.equals(getConverter().getPrimitiveType());
+	}
+
 	public String getSqlType() {
 		if (this.isEntityId)
 			return "INTEGER PRIMARY KEY AUTOINCREMENT";
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright 2012 Google, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.turbomanage.storm.apt.entity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Model of an index declared with @Index
+ *
+ * @author David M. Chandler
+ */
+public class IndexModel {
+
+	private static final String PREFIX = "IDX_";
+	private String name, where;
+	private boolean unique;
+	private List<String> fieldNames = new ArrayList<String>();
+	private List<String> columns = new ArrayList<String>();
+
+	public IndexModel(String name, String[] fieldNames, boolean unique, String where) {
+		this.name = name;
+		for (String fieldName : fieldNames) {
+			this.fieldNames.add(fieldName.trim());
+		}
+		this.unique = unique;
+		this.where = where;
+	}
+
+	/**
+	 * Field names as declared, each optionally followed by ASC or DESC.
+	 */
+	List<String> getFieldNames() {
+		return fieldNames;
+	}
+
+	void addColumn(String column) {
+		columns.add(column);
+	}
+
+	/**
+	 * Supplies a default name from the table and column names.
+	 *
+	 * @param tableName
+	 */
+	void resolveName(String tableName) {
+		if (name != null && name.length() > 0) {
+			return;
+		}
+		StringBuilder sb = new StringBuilder(PREFIX);
+		sb.append(tableName.replace("[", "").replace("]", ""));
+		for (String col : columns) {
+			sb.append("_").append(col.split("\\s+")[0]);
+		}
+		this.name = sb.toString();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return Indexed columns separated by commas for use in DDL
+	 */
+	public String getColumnList() {
+		StringBuilder sb = new StringBuilder();
+		for (String col : columns) {
+			if (sb.length() > 0) {
+				sb.append(",");
+			}
+			sb.append(col);
+		}
+		return sb.toString();
+	}
+
+	public boolean isUnique() {
+		return unique;
+	}
+
+	/**
+	 * @return WHERE clause of a partial index or null
+	 */
+	public String getWhere() {
+		return (where != null && where.length() > 0) ? where : null;
+	}
+
+}
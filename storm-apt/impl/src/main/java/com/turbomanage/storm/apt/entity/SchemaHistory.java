@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * Copyright 2012 Google, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.turbomanage.storm.apt.entity;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import com.turbomanage.storm.apt.ProcessorLogger;
+import com.turbomanage.storm.apt.StormEnvironment;
+import com.turbomanage.storm.csv.CsvUtils;
+
+/**
+ * The column definitions of a table at each database version for which
+ * it has been compiled. Persisted in the stormEnv index so that the
+ * processor can generate ALTER TABLE statements for each version step.
+ *
+ * @author David M. Chandler
+ */
+public class SchemaHistory {
+
+	private String tableHelperClass;
+	// version -> column definitions such as "INTFIELD INTEGER NOT NULL"
+	private TreeMap<Integer, List<String>> versions = new TreeMap<Integer, List<String>>();
+
+	public SchemaHistory(String tableHelperClass) {
+		this.tableHelperClass = tableHelperClass;
+	}
+
+	public String getTableHelperClass() {
+		return tableHelperClass;
+	}
+
+	public List<String> getColumns(int version) {
+		return versions.get(version);
+	}
+
+	/**
+	 * Records the columns of the table at a version, replacing any
+	 * previous definition at that version and forgetting later versions,
+	 * which can only remain if the database version was rolled back.
+	 *
+	 * @param version
+	 * @param columnDefs
+	 */
+	public void putVersion(int version, List<String> columnDefs) {
+		versions.tailMap(version, false).clear();
+		versions.put(version, columnDefs);
+	}
+
+	/**
+	 * @param version
+	 * @return true if any version before the given one is recorded
+	 */
+	public boolean hasVersionBefore(int version) {
+		return versions.lowerKey(version) != null;
+	}
+
+	/**
+	 * Reports the table if it is compiled at a database version above 1
+	 * but no earlier version is recorded. The history lives in the
+	 * stormEnv index among the generated sources, so a clean build or a
+	 * fresh checkout loses it, and no ALTER TABLE statements can then be
+	 * generated for columns added since the last installed version.
+	 *
+	 * @param version database version being compiled
+	 * @param tableName
+	 * @param required report an error, which fails the build, rather
+	 *        than a warning
+	 * @param logger
+	 * @return true if the history is missing
+	 */
+	public boolean checkEarlierVersion(int version, String tableName, boolean required, ProcessorLogger logger) {
+		if (version <= 1 || hasVersionBefore(version)) {
+			return false;
+		}
+		String msg = "No schema history of table " + tableName + " before database version "
+				+ version + ", so no ALTER TABLE statements can be generated for it.";
+		if (required) {
+			logger.error(msg + " Restore the stormEnv file from an earlier build, or set"
+					+ " @Database(requireSchemaHistory = false) if no app has an earlier version installed.");
+		} else {
+			logger.warning(msg + " If the table existed in an earlier version, restore the"
+					+ " stormEnv file, or installed apps will lack any columns added since.");
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the column definitions of an entity as they appear in
+	 * the generated createSql().
+	 *
+	 * @param em
+	 * @return List of column definitions
+	 */
+	public static List<String> getColumnDefs(EntityModel em) {
+		List<String> defs = new ArrayList<String>();
+		for (FieldModel f : em.getFields()) {
+			defs.add(f.getColName() + " " + f.getSqlType() + (f.isNullable() ? "" : " NOT NULL"));
+		}
+		return defs;
+	}
+
+	/**
+	 * Diffs each pair of consecutive versions and returns the statements
+	 * required to migrate a table from one to the next. Only added columns
+	 * can be migrated by ALTER TABLE; removed or changed columns and new
+	 * primary keys are reported as warnings. Index changes are not
+	 * included as TableHelper syncs indexes on every upgrade.
+	 *
+	 * @param tableName
+	 * @param logger
+	 * @return one step per version having changes, in version order
+	 */
+	public List<AlterStep> getAlterSteps(String tableName, ProcessorLogger logger) {
+		List<AlterStep> steps = new ArrayList<AlterStep>();
+		Map<String, String> prev = null;
+		for (Entry<Integer, List<String>> version : versions.entrySet()) {
+			Map<String, String> cols = byName(version.getValue());
+			if (prev != null) {
+				AlterStep step = new AlterStep(version.getKey());
+				for (Entry<String, String> col : cols.entrySet()) {
+					String oldDef = prev.get(col.getKey());
+					if (oldDef == null) {
+						addColumn(step, tableName, col.getValue(), logger);
+					} else if (!oldDef.equals(col.getValue())) {
+						logger.warning(tableName + ": column " + col.getKey()
+								+ " changed from " + oldDef + " to " + col.getValue()
+								+ " in version " + step.getVersion()
+								+ ". ALTER TABLE cannot change columns; use UpgradeStrategy.TABLE_COPY");
+					}
+				}
+				for (String oldCol : prev.keySet()) {
+					if (!cols.containsKey(oldCol)) {
+						logger.warning(tableName + ": column " + oldCol
+								+ " removed in version " + step.getVersion()
+								+ ". ALTER TABLE cannot drop columns; use UpgradeStrategy.TABLE_COPY");
+					}
+				}
+				if (step.getStatements().size() > 0) {
+					steps.add(step);
+				}
+			}
+			prev = cols;
+		}
+		return steps;
+	}
+
+	private void addColumn(AlterStep step, String tableName, String colDef, ProcessorLogger logger) {
+		if (colDef.contains("PRIMARY KEY")) {
+			logger.warning(tableName + ": cannot add primary key " + colDef
+					+ " in version " + step.getVersion() + "; use UpgradeStrategy.TABLE_COPY");
+			return;
+		}
+		String sql = "ALTER TABLE " + tableName + " ADD COLUMN " + colDef;
+		// SQLite requires a default to add a NOT NULL column
+		if (colDef.endsWith(" NOT NULL")) {
+			if (colDef.contains(" TEXT ")) {
+				sql += " DEFAULT ''";
+			} else if (colDef.contains(" BLOB ")) {
+				sql += " DEFAULT X''";
+			} else {
+				sql += " DEFAULT 0";
+			}
+		}
+		step.getStatements().add(sql);
+	}
+
+	private static Map<String, String> byName(List<String> columnDefs) {
+		Map<String, String> cols = new LinkedHashMap<String, String>();
+		for (String def : columnDefs) {
+			int i = def.indexOf(' ');
+			String name = (i < 0) ? def : def.substring(0, i);
+			cols.put(name.toUpperCase(), def);
+		}
+		return cols;
+	}
+
+	/**
+	 * Reads a history written by {@link #writeToIndex(PrintWriter)}. The
+	 * first line names the TableHelper class followed by one CSV line per
+	 * version containing the version and its column definitions.
+	 *
+	 * @param reader
+	 * @return SchemaHistory
+	 * @throws IOException
+	 */
+	public static SchemaHistory readFromIndex(BufferedReader reader) throws IOException {
+		SchemaHistory history = new SchemaHistory(reader.readLine());
+		String line = reader.readLine();
+		while (line != null && !line.equals(StormEnvironment.END_SCHEMA)) {
+			List<String> values = CsvUtils.getValues(line);
+			int version = Integer.parseInt(values.get(0));
+			history.versions.put(version, new ArrayList<String>(values.subList(1, values.size())));
+			line = reader.readLine();
+		}
+		return history;
+	}
+
+	public void writeToIndex(PrintWriter out) {
+		out.println(StormEnvironment.BEGIN_SCHEMA);
+		out.println(tableHelperClass);
+		for (Entry<Integer, List<String>> version : versions.entrySet()) {
+			StringBuilder sb = new StringBuilder(String.valueOf(version.getKey()));
+			for (String def : version.getValue()) {
+				sb.append(CsvUtils.DELIMITER).append(CsvUtils.escapeCsv(def));
+			}
+			out.println(sb);
+		}
+		out.println(StormEnvironment.END_SCHEMA);
+	}
+
+	/**
+	 * The statements which migrate a table to a version from the
+	 * previous one in the history.
+	 */
+	public static class AlterStep {
+
+		private int version;
+		private List<String> statements = new ArrayList<String>();
+
+		AlterStep(int version) {
+			this.version = version;
+		}
+
+		public int getVersion() {
+			return version;
+		}
+
+		public List<String> getStatements() {
+			return statements;
+		}
+	}
+
+}
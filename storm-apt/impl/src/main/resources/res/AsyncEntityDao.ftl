@@ -0,0 +1,28 @@
+package ${daoPackage};
+
+import android.content.Context;
+import com.turbomanage.storm.AsyncSQLiteDao;
+<#list imports as import>
+import ${import};
+</#list>
+
+/**
+ * GENERATED CODE
+ *
+ * @author David M. Chandler
+ */
+public class ${asyncDaoName} extends AsyncSQLiteDao<${entityName}>{
+
+	/**
+	 * @see AsyncSQLiteDao#AsyncSQLiteDao(Context, com.turbomanage.storm.SQLiteDao)
+	 */
+	public ${asyncDaoName}(Context ctx) {
+		super(ctx, new ${daoName}(ctx));
+	}
+
+	@Override
+	public ${daoName} getDao() {
+		return (${daoName}) super.getDao();
+	}
+
+}
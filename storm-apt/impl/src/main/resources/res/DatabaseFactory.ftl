@@ -3,6 +3,8 @@ package ${package};
 import android.content.Context;
 import android.database.sqlite.SQLiteOpenHelper;
 import com.turbomanage.storm.DatabaseHelper;
+import com.turbomanage.storm.DatabaseHelper.JournalMode;
+import com.turbomanage.storm.DatabaseHelper.Synchronous;
 import com.turbomanage.storm.TableHelper;
 import com.turbomanage.storm.api.DatabaseFactory;
 
@@ -19,6 +21,9 @@ public class ${factoryName} implements DatabaseFactory {
 
 	private static final String DB_NAME = "${dbName}";
 	private static final int DB_VERSION = ${dbVersion};
+	private static final JournalMode JOURNAL_MODE = JournalMode.${journalMode};
+	private static final Synchronous SYNCHRONOUS = Synchronous.${synchronous};
+	private static final int READER_CONNECTIONS = ${readerConnections?c};
 	private static final TableHelper[] TABLE_HELPERS = new TableHelper[] {
 	<#list tableHelpers as th>
 		new ${th}()<#if th_has_next>,</#if>
@@ -59,6 +64,18 @@ public class ${factoryName} implements DatabaseFactory {
 		return TABLE_HELPERS;
 	}
 
+	public JournalMode getJournalMode() {
+		return JOURNAL_MODE;
+	}
+
+	public Synchronous getSynchronous() {
+		return SYNCHRONOUS;
+	}
+
+	public int getReaderConnections() {
+		return READER_CONNECTIONS;
+	}
+
 	private ${factoryName}() {
 		// non-instantiable
 	}
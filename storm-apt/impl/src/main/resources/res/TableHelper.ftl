@@ -3,10 +3,15 @@ package ${daoPackage};
 import android.content.ContentValues;
 import android.database.Cursor;
 import android.database.DatabaseUtils.InsertHelper;
+import android.database.sqlite.SQLiteStatement;
 import com.turbomanage.storm.query.Query;
+import com.turbomanage.storm.EntityCache;
 import com.turbomanage.storm.TableHelper;
-import java.util.Map;
+import com.turbomanage.storm.types.PrimitiveConverter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 <#list imports as import>
 import ${import};
 </#list>
@@ -36,6 +41,16 @@ public class ${tableHelperName} extends TableHelper<${entityName}> {
 		}
 	}
 
+	<#if cacheSize gt 0>
+	private static final EntityCache<${entityName}> CACHE =
+			new EntityCache<${entityName}>(${cacheSize?c}, EntityCache.RefType.${cacheRefType});
+
+	@Override
+	public EntityCache<${entityName}> getCache() {
+		return CACHE;
+	}
+
+	</#if>
 	@Override
 	public String getTableName() {
 		return "${tableName}";
@@ -71,11 +86,70 @@ public class ${tableHelperName} extends TableHelper<${entityName}> {
 			")";
 	}
 
+	@Override
+	public String[] createIndexSql() {
+		return new String[] {
+			<#list indexes as index>
+			"CREATE <#if index.unique>UNIQUE </#if>INDEX IF NOT EXISTS ${index.name} ON ${tableName}(${index.columnList})<#if index.where??> WHERE ${index.where?j_string}</#if>"<#if index_has_next>,</#if>
+			</#list>
+		};
+	}
+
+	@Override
+	public String[] getIndexNames() {
+		return new String[] {
+			<#list indexes as index>
+			"${index.name}"<#if index_has_next>,</#if>
+			</#list>
+		};
+	}
+
+	@Override
+	public String insertSql() {
+		return
+			"INSERT INTO ${tableName}(" +
+				<#list fields as field>
+				"${field.colName}<#if field_has_next>,</#if>" +
+				</#list>
+			") VALUES (" +
+				<#list fields as field>
+				"?<#if field_has_next>,</#if>" +
+				</#list>
+			")";
+	}
+
+	@Override
+	public String upsertSql() {
+		return
+			"INSERT OR REPLACE INTO ${tableName}(" +
+				<#list fields as field>
+				"${field.colName}<#if field_has_next>,</#if>" +
+				</#list>
+			") VALUES (" +
+				<#list fields as field>
+				"?<#if field_has_next>,</#if>" +
+				</#list>
+			")";
+	}
+
 	@Override
 	public String dropSql() {
 		return "DROP TABLE IF EXISTS ${tableName}";
 	}
 
+	@Override
+	public String[] alterSql(int oldVersion, int newVersion) {
+		List<String> sql = new ArrayList<String>();
+		<#list alterSteps as step>
+		if (oldVersion < ${step.version?c} && newVersion >= ${step.version?c}) {
+			<#list step.statements as stmt>
+			sql.add("${stmt?j_string}");
+			</#list>
+		}
+		</#list>
+		return sql.toArray(new String[sql.size()]);
+	}
+
 	@Override
 	public String upgradeSql(int oldVersion, int newVersion) {
 		return null;
@@ -89,6 +163,8 @@ public class ${tableHelperName} extends TableHelper<${entityName}> {
 		<#list fields as field>
 		<#if field.enum>
 		colIdx = c.getColumnIndex("${field.colName}"); values[${field_index}] = (colIdx < 0) ? defaultValues[${field_index}] : getStringOrNull(c, colIdx);
+		<#elseif !field.nullable>
+		colIdx = c.getColumnIndex("${field.colName}"); values[${field_index}] = (colIdx < 0) ? defaultValues[${field_index}] : c.isNull(colIdx) ? null : PrimitiveConverter.toString(c.get${field.bindType}(colIdx));
 		<#else>
 		colIdx = c.getColumnIndex("${field.colName}"); values[${field_index}] = (colIdx < 0) ? defaultValues[${field_index}] : ${field.converterName}.GET.toString(get${field.bindType}OrNull(c, colIdx));
 		</#if>
@@ -122,33 +198,46 @@ public class ${tableHelperName} extends TableHelper<${entityName}> {
 	}
 
 	@Override
-	public ${entityName} newInstance(Cursor c) {
-		${entityName} obj = new ${entityName}();
+	public ${entityName} newInstance() {
+		return new ${entityName}();
+	}
+
+	@Override
+	public ${entityName} newInstance(Cursor c, int[] cols) {
+		return populate(new ${entityName}(), c, cols);
+	}
+
+	@Override
+	public ${entityName} populate(${entityName} obj, Cursor c, int[] cols) {
 		<#list fields as field>
 		<#if field.javaType == "byte[]">
-		obj.${field.setter}(c.getBlob(${field_index}));
+		if (cols[${field_index}] >= 0) obj.${field.setter}(c.getBlob(cols[${field_index}]));
 		<#elseif field.javaType == "boolean">
-		obj.${field.setter}(c.getInt(${field_index}) == 1 ? true : false);
+		if (cols[${field_index}] >= 0) obj.${field.setter}(c.getInt(cols[${field_index}]) == 1 ? true : false);
 		<#elseif field.javaType == "byte">
-		obj.${field.setter}((byte) c.getShort(${field_index}));
+		if (cols[${field_index}] >= 0) obj.${field.setter}((byte) c.getShort(cols[${field_index}]));
 		<#elseif field.javaType == "char">
-		obj.${field.setter}((char) c.getInt(${field_index}));
+		if (cols[${field_index}] >= 0) obj.${field.setter}((char) c.getInt(cols[${field_index}]));
 		<#elseif field.javaType == "double">
-		obj.${field.setter}(c.getDouble(${field_index}));
+		if (cols[${field_index}] >= 0) obj.${field.setter}(c.getDouble(cols[${field_index}]));
 		<#elseif field.javaType == "float">
-		obj.${field.setter}(c.getFloat(${field_index}));
+		if (cols[${field_index}] >= 0) obj.${field.setter}(c.getFloat(cols[${field_index}]));
 		<#elseif field.javaType == "int">
-		obj.${field.setter}(c.getInt(${field_index}));
+		if (cols[${field_index}] >= 0) obj.${field.setter}(c.getInt(cols[${field_index}]));
 		<#elseif field.javaType == "long">
-		obj.${field.setter}(c.getLong(${field_index}));
+		if (cols[${field_index}] >= 0) obj.${field.setter}(c.getLong(cols[${field_index}]));
 		<#elseif field.javaType == "short">
-		obj.${field.setter}(c.getShort(${field_index}));
+		if (cols[${field_index}] >= 0) obj.${field.setter}(c.getShort(cols[${field_index}]));
 		<#elseif field.javaType == "java.lang.String">
-		obj.${field.setter}(c.getString(${field_index}));
+		if (cols[${field_index}] >= 0) obj.${field.setter}(c.getString(cols[${field_index}]));
 		<#elseif field.enum>
-		obj.${field.setter}(c.isNull(${field_index}) ? null : ${field.javaType}.valueOf(c.getString(${field_index})));
+		if (cols[${field_index}] >= 0) obj.${field.setter}(c.isNull(cols[${field_index}]) ? null : ${field.javaType}.valueOf(c.getString(cols[${field_index}])));
+		<#elseif field.sqlLong>
+		if (cols[${field_index}] >= 0) obj.${field.setter}(c.isNull(cols[${field_index}]) ? null : ${field.converterName}.GET.fromSqlLong(c.getLong(cols[${field_index}])));
+		<#elseif field.sqlDouble>
+		if (cols[${field_index}] >= 0) obj.${field.setter}(c.isNull(cols[${field_index}]) ? null : ${field.converterName}.GET.fromSqlDouble(c.getDouble(cols[${field_index}])));
 		<#else>
-		obj.${field.setter}(${field.converterName}.GET.fromSql(get${field.bindType}OrNull(c, ${field_index})));
+		if (cols[${field_index}] >= 0) obj.${field.setter}(${field.converterName}.GET.fromSql(get${field.bindType}OrNull(c, cols[${field_index}])));
 		</#if>
 		</#list>
 		return obj;
@@ -187,6 +276,33 @@ public class ${tableHelperName} extends TableHelper<${entityName}> {
 		return cv;
 	}
 
+	@Override
+	public void bindInsert(SQLiteStatement stmt, ${entityName} obj) {
+		<#list fields as field>
+		<#if field.colName == "_id">
+		if (obj.${field.getter}() == 0) stmt.bindNull(${field_index+1}); else stmt.bindLong(${field_index+1}, obj.${field.getter}());
+		<#elseif field.javaType == "byte[]">
+		bindBlobOrNull(stmt, ${field_index+1}, obj.${field.getter}());
+		<#elseif field.javaType == "boolean">
+		stmt.bindLong(${field_index+1}, obj.${field.getter}() ? 1 : 0);
+		<#elseif field.javaType == "byte" || field.javaType == "char" || field.javaType == "int" || field.javaType == "long" || field.javaType == "short">
+		stmt.bindLong(${field_index+1}, obj.${field.getter}());
+		<#elseif field.javaType == "double" || field.javaType == "float">
+		stmt.bindDouble(${field_index+1}, obj.${field.getter}());
+		<#elseif field.javaType == "java.lang.String">
+		bindStringOrNull(stmt, ${field_index+1}, obj.${field.getter}());
+		<#elseif field.enum>
+		bindStringOrNull(stmt, ${field_index+1}, obj.${field.getter}() == null ? null : obj.${field.getter}().name());
+		<#elseif field.sqlLong>
+		if (obj.${field.getter}() == null) stmt.bindNull(${field_index+1}); else stmt.bindLong(${field_index+1}, ${field.converterName}.GET.toSqlLong(obj.${field.getter}()));
+		<#elseif field.sqlDouble>
+		if (obj.${field.getter}() == null) stmt.bindNull(${field_index+1}); else stmt.bindDouble(${field_index+1}, ${field.converterName}.GET.toSqlDouble(obj.${field.getter}()));
+		<#else>
+		bind${field.bindType}OrNull(stmt, ${field_index+1}, ${field.converterName}.GET.toSql(obj.${field.getter}()));
+		</#if>
+		</#list>
+	}
+
 	@Override
 	public Query buildFilter(Query filter, ${entityName} obj) {
 		${entityName} defaultObj = new ${entityName}();
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright 2012 Google, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.turbomanage.storm.apt.entity;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.processing.Messager;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.tools.Diagnostic.Kind;
+
+import junit.framework.TestCase;
+
+import com.turbomanage.storm.apt.ProcessorLogger;
+import com.turbomanage.storm.apt.StormEnvironment;
+import com.turbomanage.storm.apt.entity.SchemaHistory.AlterStep;
+
+public class SchemaHistoryTestCase extends TestCase {
+
+	private List<String> warnings = new ArrayList<String>();
+	private List<String> errors = new ArrayList<String>();
+	private ProcessorLogger logger = new ProcessorLogger(new Messager() {
+		public void printMessage(Kind kind, CharSequence msg) {
+			if (kind == Kind.WARNING) {
+				warnings.add(msg.toString());
+			} else if (kind == Kind.ERROR) {
+				errors.add(msg.toString());
+			}
+		}
+		public void printMessage(Kind kind, CharSequence msg, Element e) {
+			printMessage(kind, msg);
+		}
+		public void printMessage(Kind kind, CharSequence msg, Element e, AnnotationMirror a) {
+			printMessage(kind, msg);
+		}
+		public void printMessage(Kind kind, CharSequence msg, Element e, AnnotationMirror a, AnnotationValue v) {
+			printMessage(kind, msg);
+		}
+	});
+
+	public void testAddedColumns() {
+		SchemaHistory history = new SchemaHistory("dao.PersonTable");
+		history.putVersion(1, Arrays.asList("_id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL", "NAME TEXT"));
+		history.putVersion(2, Arrays.asList("_id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL", "NAME TEXT", "AGE INTEGER NOT NULL"));
+		history.putVersion(3, Arrays.asList("_id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL", "NAME TEXT", "AGE INTEGER NOT NULL"));
+		history.putVersion(4, Arrays.asList("_id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL", "NAME TEXT", "AGE INTEGER NOT NULL", "NICK TEXT NOT NULL", "PHOTO BLOB"));
+		List<AlterStep> steps = history.getAlterSteps("Person", logger);
+		assertEquals(2, steps.size());
+		assertEquals(2, steps.get(0).getVersion());
+		assertEquals(Arrays.asList("ALTER TABLE Person ADD COLUMN AGE INTEGER NOT NULL DEFAULT 0"),
+				steps.get(0).getStatements());
+		assertEquals(4, steps.get(1).getVersion());
+		assertEquals(Arrays.asList("ALTER TABLE Person ADD COLUMN NICK TEXT NOT NULL DEFAULT ''",
+				"ALTER TABLE Person ADD COLUMN PHOTO BLOB"), steps.get(1).getStatements());
+		assertEquals(0, warnings.size());
+	}
+
+	public void testMissingHistory() {
+		SchemaHistory history = new SchemaHistory("dao.PersonTable");
+		assertFalse(history.checkEarlierVersion(1, "Person", true, logger));
+		history.putVersion(1, Arrays.asList("NAME TEXT"));
+		assertTrue(history.hasVersionBefore(2));
+		assertFalse(history.checkEarlierVersion(2, "Person", true, logger));
+		assertEquals(0, warnings.size());
+		assertEquals(0, errors.size());
+		// as after a clean build
+		SchemaHistory lost = new SchemaHistory("dao.PersonTable");
+		assertFalse(lost.hasVersionBefore(2));
+		assertTrue(lost.checkEarlierVersion(2, "Person", true, logger));
+		assertEquals(0, warnings.size());
+		assertEquals(1, errors.size());
+		// as for a new table or when the history is not required
+		assertTrue(lost.checkEarlierVersion(2, "Person", false, logger));
+		assertEquals(1, warnings.size());
+		assertEquals(1, errors.size());
+	}
+
+	public void testRemovedAndChangedColumnsWarn() {
+		SchemaHistory history = new SchemaHistory("dao.PersonTable");
+		history.putVersion(1, Arrays.asList("NAME TEXT", "AGE INTEGER"));
+		history.putVersion(2, Arrays.asList("AGE INTEGER NOT NULL"));
+		assertEquals(0, history.getAlterSteps("Person", logger).size());
+		assertEquals(2, warnings.size());
+		assertTrue(warnings.get(0).contains("AGE"));
+		assertTrue(warnings.get(1).contains("NAME"));
+	}
+
+	public void testRollbackForgetsLaterVersions() {
+		SchemaHistory history = new SchemaHistory("dao.PersonTable");
+		history.putVersion(1, Arrays.asList("NAME TEXT"));
+		history.putVersion(2, Arrays.asList("NAME TEXT", "AGE INTEGER"));
+		history.putVersion(1, Arrays.asList("NAME TEXT"));
+		assertNull(history.getColumns(2));
+		assertEquals(0, history.getAlterSteps("Person", logger).size());
+	}
+
+	public void testIndexRoundTrip() throws IOException {
+		SchemaHistory history = new SchemaHistory("dao.PersonTable");
+		history.putVersion(1, Arrays.asList("_id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL", "NAME TEXT"));
+		history.putVersion(3, Arrays.asList("_id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL", "NAME TEXT", "AGE INTEGER"));
+		StringWriter sw = new StringWriter();
+		PrintWriter out = new PrintWriter(sw);
+		history.writeToIndex(out);
+		out.close();
+		BufferedReader reader = new BufferedReader(new StringReader(sw.toString()));
+		assertEquals(StormEnvironment.BEGIN_SCHEMA, reader.readLine());
+		SchemaHistory copy = SchemaHistory.readFromIndex(reader);
+		assertEquals("dao.PersonTable", copy.getTableHelperClass());
+		assertEquals(history.getColumns(1), copy.getColumns(1));
+		assertEquals(history.getColumns(3), copy.getColumns(3));
+		assertEquals(1, copy.getAlterSteps("Person", logger).size());
+	}
+
+}
@@ -87,16 +87,6 @@ public class ContactActivity extends ActionBarActivity implements LoaderManager.
         return super.onOptionsItemSelected(item);
     }
 
-    @Override
-    protected void onActivityResult(int requestCode, int resultCode, Intent data) {
-
-        if(resultCode == NewContactActivity.RESULT_CODE_CREATED){
-
-            getSupportLoaderManager().restartLoader(1, null, this);
-        }
-        super.onActivityResult(requestCode, resultCode, data);
-    }
-
     @Override
     public Loader<List<Contact>> onCreateLoader(int id, Bundle args) {
         return new ContactLoader(this);
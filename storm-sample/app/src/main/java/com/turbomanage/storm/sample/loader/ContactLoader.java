@@ -1,11 +1,15 @@
 package com.turbomanage.storm.sample.loader;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 
+import com.turbomanage.storm.TableChangeListener;
 import com.turbomanage.storm.sample.model.Contact;
 import com.turbomanage.storm.sample.model.dao.ContactDao;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * Created by galex on 11/06/14.
@@ -13,6 +17,22 @@ import java.util.List;
 public class ContactLoader extends AbstractAsyncTaskLoader<List<Contact>> {
 
     private ContactDao mContactDao;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private final TableChangeListener mTableChangeListener = new TableChangeListener() {
+        @Override
+        public void onTablesChanged(Set<String> tableNames) {
+            if (tableNames.contains(mContactDao.getTableHelper().getTableName())) {
+                // Loader callbacks must run on the main thread
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        onContentChanged();
+                    }
+                });
+            }
+        }
+    };
 
     public ContactLoader(Context context) {
 
@@ -20,6 +40,18 @@ public class ContactLoader extends AbstractAsyncTaskLoader<List<Contact>> {
         mContactDao = new ContactDao(context);
     }
 
+    @Override
+    protected void onStartLoading() {
+        mContactDao.getDbHelper(getContext()).addTableChangeListener(mTableChangeListener);
+        super.onStartLoading();
+    }
+
+    @Override
+    protected void onReset() {
+        super.onReset();
+        mContactDao.getDbHelper(getContext()).removeTableChangeListener(mTableChangeListener);
+    }
+
     @Override
     public List<Contact> loadInBackground() {
         return mContactDao.listAll();
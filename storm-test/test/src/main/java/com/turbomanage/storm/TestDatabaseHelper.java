@@ -17,10 +17,13 @@ package com.turbomanage.storm;
 
 import android.content.Context;
 
+import com.turbomanage.storm.DatabaseHelper.JournalMode;
+import com.turbomanage.storm.DatabaseHelper.Synchronous;
 import com.turbomanage.storm.api.Database;
 import com.turbomanage.storm.api.DatabaseFactory;
 
-@Database(name = TestDatabaseHelper.DB_NAME, version = TestDatabaseHelper.DB_VERSION)
+@Database(name = TestDatabaseHelper.DB_NAME, version = TestDatabaseHelper.DB_VERSION,
+		journalMode = JournalMode.WAL, synchronous = Synchronous.NORMAL, readerConnections = 2)
 public class TestDatabaseHelper extends DatabaseHelper {
 
 	public TestDatabaseHelper(Context ctx, DatabaseFactory dbFactory) {
@@ -17,12 +17,13 @@ package com.turbomanage.storm.converter;
 
 import com.turbomanage.storm.api.Converter;
 import com.turbomanage.storm.types.DoubleConverter;
+import com.turbomanage.storm.types.DoubleTypeConverter;
 import com.turbomanage.storm.types.TypeConverter;
 import com.turbomanage.storm.types.TypeConverter.BindType;
 import com.turbomanage.storm.types.TypeConverter.SqlType;
 
 @Converter(forTypes = { Latitude.class }, bindType = BindType.DOUBLE, sqlType = SqlType.REAL)
-public class LatitudeConverter extends TypeConverter<Latitude, Double> {
+public class LatitudeConverter extends TypeConverter<Latitude, Double> implements DoubleTypeConverter<Latitude> {
 
 	public static final LatitudeConverter GET = new LatitudeConverter();
 
@@ -50,4 +51,14 @@ public class LatitudeConverter extends TypeConverter<Latitude, Double> {
 		return DoubleConverter.GET.toString(sqlValue);
 	}
 
+	@Override
+	public double toSqlDouble(Latitude javaValue) {
+		return javaValue.getDegLat();
+	}
+
+	@Override
+	public Latitude fromSqlDouble(double sqlValue) {
+		return new Latitude(sqlValue);
+	}
+
 }
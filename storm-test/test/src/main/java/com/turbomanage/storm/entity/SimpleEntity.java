@@ -19,9 +19,11 @@ import java.util.Date;
 
 import com.turbomanage.storm.api.Entity;
 import com.turbomanage.storm.api.Id;
+import com.turbomanage.storm.api.Index;
 import com.turbomanage.storm.converter.Latitude;
 
 @Entity
+@Index(name = "IDX_SIMPLE_STRING_LONG", columns = { "wStringField", "longField DESC" })
 public class SimpleEntity {
 
     public static String CONSTANT = "constant";
@@ -36,6 +38,7 @@ public class SimpleEntity {
 	byte[] blobField;
 	char charField;
 	short shortField;
+	@Index
 	int intField;
 	long longField;
 	float floatField;
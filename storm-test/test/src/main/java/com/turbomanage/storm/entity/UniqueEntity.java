@@ -0,0 +1,34 @@
+package com.turbomanage.storm.entity;
+
+import com.turbomanage.storm.EntityCache.RefType;
+import com.turbomanage.storm.api.Entity;
+import com.turbomanage.storm.api.Index;
+
+@Entity(cacheSize = 10, cacheRefType = RefType.STRONG)
+public class UniqueEntity {
+
+	private long id;
+	@Index(unique = true)
+	private String code;
+
+	public UniqueEntity() {
+	}
+
+	public UniqueEntity(String code) {
+		this.code = code;
+	}
+
+	public long getId() {
+		return id;
+	}
+	public void setId(long id) {
+		this.id = id;
+	}
+	public String getCode() {
+		return code;
+	}
+	public void setCode(String code) {
+		this.code = code;
+	}
+
+}
@@ -1,8 +1,9 @@
 package com.turbomanage.storm.entity;
 
+import com.turbomanage.storm.EntityCache.RefType;
 import com.turbomanage.storm.api.Entity;
 
-@Entity
+@Entity(cacheSize = 3, cacheRefType = RefType.STRONG)
 public class ValueEntity {
 
 	private long id;
@@ -15,9 +15,11 @@
  ******************************************************************************/
 package com.turbomanage.storm.query;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import android.content.Context;
+import android.database.Cursor;
 import android.test.AndroidTestCase;
 
 import com.turbomanage.storm.entity.SimpleEntity;
@@ -114,6 +116,223 @@ public class FilterTestCase extends AndroidTestCase {
 		}
 	}
 	
+	public void testSelectColumns() {
+		SimpleEntity result = dao.load().eq(Columns.INTFIELD, INT_VALUE)
+				.select(Columns._id, Columns.LONGFIELD, Columns.INTFIELD).get();
+		assertTrue(result.getId() > 0);
+		assertEquals(INT_VALUE, result.getIntField());
+		assertEquals(LONG_VALUE, result.getLongField());
+		// not in projection, so default values
+		assertNull(result.getBlobField());
+		assertNull(result.getEnumField());
+		assertEquals(0, result.getShortField());
+	}
+
+	public void testLimitOffset() {
+		for (int i = 0; i < 9; i++) {
+			insertTestEntity();
+		}
+		List<SimpleEntity> all = dao.load().order(Columns._id.asc()).list();
+		assertEquals(10, all.size());
+		List<SimpleEntity> page = dao.load().order(Columns._id.asc()).limit(4).offset(4).list();
+		assertEquals(4, page.size());
+		assertEquals(all.get(4).getId(), page.get(0).getId());
+		assertEquals(2, dao.load().offset(8).list().size());
+	}
+
+	public void testKeysetPaging() {
+		dao.deleteAll();
+		int[] values = { 5, 3, 8, 3, 1, 5, 5, 2 };
+		for (int value : values) {
+			SimpleEntity e = new SimpleEntity();
+			e.setIntField(value);
+			dao.insert(e);
+		}
+		List<SimpleEntity> expected = dao.load().order(Columns.INTFIELD.asc(), Columns._id.asc()).list();
+		List<SimpleEntity> paged = new ArrayList<SimpleEntity>();
+		List<SimpleEntity> page = dao.load().keyset(Columns.INTFIELD).limit(3).list();
+		while (!page.isEmpty()) {
+			paged.addAll(page);
+			SimpleEntity last = page.get(page.size() - 1);
+			page = dao.load().keyset(Columns.INTFIELD).pageAfter(last).limit(3).list();
+		}
+		assertEquals(expected.size(), paged.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).getId(), paged.get(i).getId());
+		}
+		List<SimpleEntity> afterFive = dao.load().after(Columns.INTFIELD, 5).list();
+		assertEquals(1, afterFive.size());
+		assertEquals(8, afterFive.get(0).getIntField());
+	}
+
+	public void testKeysetPagingRejectsCustomOrder() {
+		SimpleEntity last = new SimpleEntity();
+		last.setId(1);
+		try {
+			dao.load().order(Columns.INTFIELD.desc()).limit(3).pageAfter(last);
+			fail("Expected IllegalStateException");
+		} catch (IllegalStateException e) {
+			// id seek doesn't match the INTFIELD order
+		}
+		try {
+			dao.load().keyset(Columns.INTFIELD).order(Columns.LONGFIELD.asc()).pageAfter(last);
+			fail("Expected IllegalStateException");
+		} catch (IllegalStateException e) {
+			// order() replaced the keyset order
+		}
+		try {
+			dao.load().keyset(Columns.INTFIELD).pageAfter(last).order(Columns.LONGFIELD.asc());
+			fail("Expected IllegalStateException");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		// the keyset order itself is fine
+		dao.load().order(Columns._id.asc()).pageAfter(last).list();
+	}
+
+	public void testAggregates() {
+		dao.deleteAll();
+		assertEquals(0, dao.load().count());
+		assertFalse(dao.load().exists());
+		int[] values = { 2, 3, 5, 8 };
+		for (int value : values) {
+			SimpleEntity e = new SimpleEntity();
+			e.setIntField(value);
+			e.setDoubleField(value + 0.25);
+			dao.insert(e);
+		}
+		assertEquals(4, dao.load().count());
+		assertEquals(2, dao.load().after(Columns.INTFIELD, 3).count());
+		assertEquals(1, dao.load().eq(Columns.INTFIELD, 5).count());
+		assertTrue(dao.load().eq(Columns.INTFIELD, 8).exists());
+		assertFalse(dao.load().eq(Columns.INTFIELD, 13).exists());
+		assertEquals(18, dao.load().sum(Columns.INTFIELD));
+		assertEquals(2, dao.load().min(Columns.INTFIELD));
+		assertEquals(8, dao.load().max(Columns.INTFIELD));
+		assertEquals(4.5, dao.load().avg(Columns.INTFIELD));
+		assertEquals(19.0, dao.load().sumDouble(Columns.DOUBLEFIELD));
+		assertEquals(2.25, dao.load().minDouble(Columns.DOUBLEFIELD));
+		assertEquals(8.25, dao.load().maxDouble(Columns.DOUBLEFIELD));
+		assertEquals(8, dao.load().max(Columns.DOUBLEFIELD));
+		assertEquals(0.0, dao.load().eq(Columns.INTFIELD, 13).sumDouble(Columns.DOUBLEFIELD));
+		assertEquals(3, dao.load().offset(1).count());
+		assertEquals(5, dao.load().order(Columns.INTFIELD.asc()).limit(2).sum(Columns.INTFIELD));
+	}
+
+	public void testCompiledQuery() {
+		dao.deleteAll();
+		int[] values = { 2, 3, 5, 5, 8 };
+		for (int value : values) {
+			SimpleEntity e = new SimpleEntity();
+			e.setIntField(value);
+			e.setEnumField(ENUM_VALUE);
+			dao.insert(e);
+		}
+		CompiledQuery<SimpleEntity> byInt = dao.load().eq(Columns.INTFIELD, 0)
+				.order(Columns._id.asc()).compile();
+		assertEquals(0, byInt.list().size());
+		assertEquals(2, byInt.bind(5).list().size());
+		assertEquals(2, byInt.bind(5).count());
+		assertEquals(8, byInt.bind(8).get().getIntField());
+		assertEquals(ENUM_VALUE, byInt.bind(8).get().getEnumField());
+		assertNull(byInt.bind(13).get());
+		// bind returns a copy
+		assertEquals(0, byInt.count());
+		CompiledQuery<SimpleEntity> byEnum = dao.load().eq(Columns.ENUMFIELD, ENUM_VALUE)
+				.after(Columns.INTFIELD, 0).select(Columns._id, Columns.INTFIELD).compile();
+		List<SimpleEntity> result = byEnum.bind(ENUM_VALUE, 3).list();
+		assertEquals(3, result.size());
+		assertEquals(5, result.get(0).getIntField());
+		assertNull(result.get(0).getEnumField());
+		try {
+			byEnum.bind(ENUM_VALUE);
+			fail("Should throw IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testComparisons() {
+		dao.deleteAll();
+		int[] values = { 2, 3, 5, 8, 13 };
+		for (int value : values) {
+			SimpleEntity e = new SimpleEntity();
+			e.setIntField(value);
+			e.setDoubleField(value / 2.0);
+			e.setwStringField((value % 2 == 0) ? "even" + value : null);
+			dao.insert(e);
+		}
+		assertEquals(2, dao.load().gt(Columns.INTFIELD, 5).count());
+		assertEquals(3, dao.load().ge(Columns.INTFIELD, 5).count());
+		assertEquals(2, dao.load().lt(Columns.INTFIELD, 5).count());
+		assertEquals(3, dao.load().le(Columns.INTFIELD, 5).count());
+		assertEquals(4, dao.load().ne(Columns.INTFIELD, 5).count());
+		assertEquals(3, dao.load().between(Columns.INTFIELD, 3, 8).count());
+		assertEquals(2, dao.load().between(Columns.DOUBLEFIELD, 1.5, 2.5).count());
+		assertEquals(3, dao.load().isNull(Columns.WSTRINGFIELD).count());
+		assertEquals(2, dao.load().isNotNull(Columns.WSTRINGFIELD).count());
+		assertEquals(2, dao.load().ne(Columns.WSTRINGFIELD, null).count());
+		assertEquals(2, dao.load().like(Columns.WSTRINGFIELD, "EVEN%").count());
+		List<SimpleEntity> outside = dao.load()
+				.or(dao.load().lt(Columns.INTFIELD, 3), dao.load().gt(Columns.DOUBLEFIELD, 4.0))
+				.order(Columns.INTFIELD.asc()).list();
+		assertEquals(2, outside.size());
+		assertEquals(2, outside.get(0).getIntField());
+		assertEquals(13, outside.get(1).getIntField());
+		// OR is grouped within the AND
+		assertEquals(1, dao.load().isNotNull(Columns.WSTRINGFIELD)
+				.or(dao.load().eq(Columns.INTFIELD, 3), dao.load().eq(Columns.INTFIELD, 8)).count());
+		List<Query<SimpleEntity>> three = new ArrayList<Query<SimpleEntity>>();
+		three.add(dao.load().eq(Columns.INTFIELD, 2));
+		three.add(dao.load().eq(Columns.INTFIELD, 3));
+		three.add(dao.load().eq(Columns.INTFIELD, 8));
+		assertEquals(3, dao.load().or(three).count());
+		try {
+			dao.load().gt(Columns.INTFIELD, null);
+			fail("Should throw IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			// pass
+		}
+	}
+
+	public void testBulkUpdateDelete() {
+		dao.deleteAll();
+		for (int i = 1; i <= 10; i++) {
+			SimpleEntity e = new SimpleEntity();
+			e.setIntField(i);
+			dao.insert(e);
+		}
+		assertEquals(4, dao.load().gt(Columns.INTFIELD, 6).update(Columns.WSTRINGFIELD, "synced"));
+		assertEquals(4, dao.load().eq(Columns.WSTRINGFIELD, "synced").count());
+		assertEquals(2, dao.load().le(Columns.INTFIELD, 2).update(
+				new Columns[] { Columns.LONGFIELD, Columns.ENUMFIELD },
+				new Object[] { LONG_VALUE, ENUM_VALUE }));
+		assertEquals(2, dao.load().eq(Columns.LONGFIELD, LONG_VALUE).eq(Columns.ENUMFIELD, ENUM_VALUE).count());
+		// only the first page in INTFIELD order
+		assertEquals(3, dao.load().order(Columns.INTFIELD.desc()).limit(3).delete());
+		assertEquals(7, dao.load().max(Columns.INTFIELD));
+		assertEquals(2, dao.load().between(Columns.INTFIELD, 3, 4).delete());
+		assertEquals(5, dao.load().count());
+		assertEquals(5, dao.load().delete());
+		assertEquals(0, dao.load().count());
+	}
+
+	public void testTypedParams() {
+		Object[] params = { 1L, 2.5, "text", new byte[] { 1 }, null };
+		assertEquals("integer,real,text,blob,null", dao.queryForString(
+				"SELECT typeof(?)||','||typeof(?)||','||typeof(?)||','||typeof(?)||','||typeof(?)", params));
+		Cursor c = dao.rawQuery("SELECT typeof(?), typeof(?)", new Object[] { INT_VALUE, DOUBLE_VALUE });
+		try {
+			assertTrue(c.moveToFirst());
+			assertEquals("integer", c.getString(0));
+			assertEquals("real", c.getString(1));
+		} finally {
+			c.close();
+		}
+		assertEquals(1, dao.load().eq(Columns.CHARFIELD, CHAR_VALUE).eq(Columns.BYTEFIELD, BYTE_VALUE)
+				.eq(Columns.BOOLEANFIELD, BOOLEAN_VALUE).list().size());
+	}
+
 	public void testFilterByExample() {
 		SimpleEntity exampleObj = new SimpleEntity();
 		exampleObj.setEnumField(ENUM_VALUE);
@@ -146,12 +365,8 @@ public class FilterTestCase extends AndroidTestCase {
 	}
 
 	public void testQueryByDouble() {
-		try {
-			dao.load().eq(Columns.DOUBLEFIELD, Math.PI);
-			fail("Should throw IllegalArgumentException");
-		} catch (IllegalArgumentException e) {
-			// pass
-		}
+		SimpleEntity result = dao.load().eq(Columns.DOUBLEFIELD, DOUBLE_VALUE).get();
+		assertEquals(DOUBLE_VALUE, result.getDoubleField());
 	}
 
 	public void testQueryByEnum() {
@@ -160,12 +375,8 @@ public class FilterTestCase extends AndroidTestCase {
 	}
 
 	public void testQueryByFloat() {
-		try {
-			dao.load().eq(Columns.FLOATFIELD, FLOAT_VALUE);
-			fail("Should throw IllegalArgumentException");
-		} catch (IllegalArgumentException e) {
-			// pass
-		}
+		SimpleEntity result = dao.load().eq(Columns.FLOATFIELD, FLOAT_VALUE).get();
+		assertEquals(FLOAT_VALUE, result.getFloatField());
 	}
 
 	public void testQueryByInt() {
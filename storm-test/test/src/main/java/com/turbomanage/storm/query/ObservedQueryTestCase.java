@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright 2012 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.turbomanage.storm.query;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.test.AndroidTestCase;
+
+import com.turbomanage.storm.Callback;
+import com.turbomanage.storm.DatabaseHelper;
+import com.turbomanage.storm.TestDatabaseHelper;
+import com.turbomanage.storm.TestDbFactory;
+import com.turbomanage.storm.entity.SimpleEntity;
+import com.turbomanage.storm.entity.ValueEntity;
+import com.turbomanage.storm.entity.dao.SimpleEntityDao;
+import com.turbomanage.storm.entity.dao.SimpleEntityTable.Columns;
+import com.turbomanage.storm.entity.dao.ValueEntityDao;
+
+public class ObservedQueryTestCase extends AndroidTestCase {
+	private DatabaseHelper dbHelper;
+	private SimpleEntityDao dao;
+	private final BlockingQueue<List<SimpleEntity>> results = new LinkedBlockingQueue<List<SimpleEntity>>();
+	private final Callback<List<SimpleEntity>> callback = new Callback<List<SimpleEntity>>() {
+		@Override
+		public void onSuccess(List<SimpleEntity> result) {
+			results.add(result);
+		}
+
+		@Override
+		public void onFailure(Throwable t) {
+			error = t;
+		}
+	};
+	private volatile Throwable error;
+	private ObservedQuery<SimpleEntity> observed;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		Context ctx = getContext();
+		dbHelper = TestDbFactory.getDatabaseHelper(ctx);
+		SQLiteDatabase db = dbHelper.getReadableDatabase();
+		assertEquals(TestDatabaseHelper.DB_VERSION, db.getVersion());
+		// wipe database
+		dbHelper.onUpgrade(db, TestDatabaseHelper.DB_VERSION, TestDatabaseHelper.DB_VERSION);
+		dao = new SimpleEntityDao(ctx);
+		observed = dao.load().eq(Columns.INTFIELD, 1).observe(callback);
+		assertEquals(0, nextResult().size());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		observed.cancel();
+		super.tearDown();
+	}
+
+	public void testRequeryOnChange() throws Exception {
+		dao.insert(newEntity(1));
+		assertEquals(1, nextResult().size());
+		// any write to the table re-runs the query
+		dao.insert(newEntity(2));
+		assertEquals(1, nextResult().size());
+		dbHelper.runInTransaction(new Callable<Void>() {
+			@Override
+			public Void call() {
+				for (int i = 0; i < 5; i++) {
+					dao.insert(newEntity(1));
+				}
+				return null;
+			}
+		});
+		// once per transaction
+		assertEquals(6, nextResult().size());
+		assertNull(results.poll(200, TimeUnit.MILLISECONDS));
+	}
+
+	public void testOtherTableIgnored() throws Exception {
+		new ValueEntityDao(getContext()).insert(new ValueEntity());
+		assertNull(results.poll(200, TimeUnit.MILLISECONDS));
+	}
+
+	public void testLatestResultWins() throws Exception {
+		for (int i = 0; i < 20; i++) {
+			dao.insert(newEntity(1));
+		}
+		// the final result reflects every write, however many were coalesced
+		List<SimpleEntity> last = nextResult();
+		while (last.size() < 20) {
+			last = nextResult();
+		}
+		assertEquals(20, last.size());
+	}
+
+	public void testDeliversUnderSteadyWrites() throws Exception {
+		final AtomicBoolean stop = new AtomicBoolean();
+		Thread writer = new Thread() {
+			@Override
+			public void run() {
+				while (!stop.get()) {
+					dao.insert(newEntity(1));
+				}
+			}
+		};
+		writer.start();
+		try {
+			// results keep coming while the table keeps changing
+			for (int i = 0; i < 3; i++) {
+				nextResult();
+			}
+			assertTrue(writer.isAlive());
+		} finally {
+			stop.set(true);
+			writer.join();
+		}
+	}
+
+	public void testCancel() throws Exception {
+		observed.cancel();
+		assertTrue(observed.isCancelled());
+		dao.insert(newEntity(1));
+		assertNull(results.poll(200, TimeUnit.MILLISECONDS));
+	}
+
+	private List<SimpleEntity> nextResult() throws InterruptedException {
+		List<SimpleEntity> result = results.poll(5, TimeUnit.SECONDS);
+		assertNull(error);
+		assertNotNull(result);
+		return result;
+	}
+
+	private SimpleEntity newEntity(int intField) {
+		SimpleEntity e = new SimpleEntity();
+		e.setIntField(intField);
+		return e;
+	}
+
+}
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright 2012 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.turbomanage.storm.test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Looper;
+import android.test.AndroidTestCase;
+
+import com.turbomanage.storm.Callback;
+import com.turbomanage.storm.DatabaseHelper;
+import com.turbomanage.storm.TestDatabaseHelper;
+import com.turbomanage.storm.TestDbFactory;
+import com.turbomanage.storm.entity.SimpleEntity;
+import com.turbomanage.storm.entity.dao.AsyncSimpleEntityDao;
+import com.turbomanage.storm.entity.dao.SimpleEntityTable.Columns;
+
+public class AsyncDaoTestCase extends AndroidTestCase {
+	private Context ctx;
+	private AsyncSimpleEntityDao dao;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		ctx = getContext();
+		openDatabase();
+		dao = new AsyncSimpleEntityDao(ctx);
+	}
+
+	public void testFutures() throws Exception {
+		SimpleEntity e = new SimpleEntity();
+		e.setIntField(42);
+		long id = dao.insert(e).get();
+		assertEquals(id, e.getId());
+		assertEquals(42, dao.get(id).get().getIntField());
+		assertEquals(1, dao.getAll(Arrays.asList(id)).get().size());
+		assertEquals(1, dao.list(dao.getDao().load().eq(Columns.INTFIELD, 42)).get().size());
+		assertEquals(1L, (long) dao.count(dao.getDao().load()).get());
+		assertEquals(1, (int) dao.delete(id).get());
+		assertNull(dao.get(id).get());
+	}
+
+	public void testCallbackOnMainThread() throws Exception {
+		final CountDownLatch latch = new CountDownLatch(2);
+		final boolean[] onMain = new boolean[2];
+		dao.insert(new SimpleEntity(), new Callback<Long>() {
+			@Override
+			public void onSuccess(Long result) {
+				onMain[0] = Looper.myLooper() == Looper.getMainLooper() && result > 0;
+				latch.countDown();
+			}
+
+			@Override
+			public void onFailure(Throwable t) {
+				latch.countDown();
+			}
+		});
+		dao.write(new Callable<Void>() {
+			@Override
+			public Void call() {
+				throw new IllegalStateException();
+			}
+		}, new Callback<Void>() {
+			@Override
+			public void onSuccess(Void result) {
+				latch.countDown();
+			}
+
+			@Override
+			public void onFailure(Throwable t) {
+				onMain[1] = Looper.myLooper() == Looper.getMainLooper()
+						&& t instanceof IllegalStateException;
+				latch.countDown();
+			}
+		});
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+		assertTrue(onMain[0]);
+		assertTrue(onMain[1]);
+	}
+
+	public void testCancelQueuedWrite() throws Exception {
+		final CountDownLatch blocker = new CountDownLatch(1);
+		Future<Void> busy = dao.write(new Callable<Void>() {
+			@Override
+			public Void call() throws InterruptedException {
+				blocker.await();
+				return null;
+			}
+		});
+		Future<Long> queued = dao.insert(new SimpleEntity());
+		assertTrue(queued.cancel(false));
+		blocker.countDown();
+		busy.get();
+		List<SimpleEntity> all = dao.listAll().get();
+		assertEquals(0, all.size());
+		// interrupts work in progress
+		Future<Void> sleeper = dao.write(new Callable<Void>() {
+			@Override
+			public Void call() throws InterruptedException {
+				Thread.sleep(60000);
+				return null;
+			}
+		});
+		Thread.sleep(100);
+		assertTrue(sleeper.cancel(true));
+		assertEquals(0, (int) dao.deleteAll().get(5, TimeUnit.SECONDS));
+	}
+
+	public void testFailurePropagates() throws InterruptedException {
+		SimpleEntity e = new SimpleEntity();
+		long id = dao.getDao().insert(e);
+		try {
+			// duplicate ID
+			dao.insert(e).get();
+			fail();
+		} catch (ExecutionException ex) {
+			assertNotNull(ex.getCause());
+		}
+		assertEquals(id, e.getId());
+	}
+
+	private void openDatabase() {
+		DatabaseHelper dbHelper = TestDbFactory.getDatabaseHelper(ctx);
+		SQLiteDatabase db = dbHelper.getReadableDatabase();
+		assertEquals(TestDatabaseHelper.DB_VERSION, db.getVersion());
+		// wipe database
+		dbHelper.onUpgrade(db, TestDatabaseHelper.DB_VERSION, TestDatabaseHelper.DB_VERSION);
+	}
+
+}
@@ -16,10 +16,14 @@
 package com.turbomanage.storm.test;
 
 import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import junit.framework.TestCase;
 
+import com.turbomanage.storm.csv.CsvReader;
 import com.turbomanage.storm.csv.CsvUtils;
 
 
@@ -52,6 +56,12 @@ public class CsvUtilsTest extends TestCase {
 		assertEquals(QUOTE + val + QUOTE, CsvUtils.escapeCsv(val));
 	}
 	
+	public void testEscapeEmptyValue() {
+		assertEquals("" + QUOTE + QUOTE, CsvUtils.escapeCsv(""));
+		assertEquals("", CsvUtils.escapeCsv(null));
+		assertEquals("", CsvUtils.unescapeCsv(CsvUtils.escapeCsv("")));
+	}
+
 	public void testUnescapeValue() {
 		String val = QUOTE + "this is a test" + QUOTE;
 		assertEquals("this is a test", CsvUtils.unescapeCsv(val));
@@ -75,6 +85,38 @@ public class CsvUtilsTest extends TestCase {
 		assertEquals("valueContains\"comma,in,quotes\"", tokens.get(3));
 	}
 
+	public void testReadRowsSpanningLines() throws IOException {
+		String csv = "a,\"line1\nline2\",c\r\n"
+				+ ",\"\",\"x\"\"y\"\r"
+				+ "last,";
+		CsvReader reader = new CsvReader(new StringReader(csv), 4);
+		List<String> row = new ArrayList<String>();
+		assertTrue(reader.readRow(row));
+		assertEquals(Arrays.asList("a", "line1\nline2", "c"), row);
+		assertTrue(reader.readRow(row));
+		assertEquals(Arrays.asList(null, "", "x\"y"), row);
+		assertTrue(reader.readRow(row));
+		assertEquals(Arrays.asList("last", null), row);
+		assertFalse(reader.readRow(row));
+	}
+
+	public void testEscapedValuesRoundTrip() throws IOException {
+		String[] orig = { "plain", "comma,value", "quote\"value", "multi\r\nline", "", null };
+		StringBuilder sb = new StringBuilder();
+		for (String val : orig) {
+			sb.append(CsvUtils.escapeCsv(val)).append(',');
+		}
+		sb.setLength(sb.length() - 1);
+		sb.append('\n');
+		CsvReader reader = new CsvReader(new StringReader(sb.toString() + sb.toString()));
+		List<String> row = new ArrayList<String>();
+		for (int i = 0; i < 2; i++) {
+			assertTrue(reader.readRow(row));
+			assertEquals(Arrays.asList(orig), row);
+		}
+		assertFalse(reader.readRow(row));
+	}
+
 	public void testReadNullValues() {
 		String csv = ",0,0,0,0,0.0,2,0,0,0,0,,,,,,,,,,";
 		List<String> values = CsvUtils.getValues(csv);
@@ -19,18 +19,22 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 import android.content.Context;
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.test.AndroidTestCase;
 
+import com.turbomanage.storm.CloseableIterator;
 import com.turbomanage.storm.DatabaseHelper;
 import com.turbomanage.storm.TableHelper;
 import com.turbomanage.storm.TestDatabaseHelper;
 import com.turbomanage.storm.TestDbFactory;
 import com.turbomanage.storm.entity.SimpleEntity;
 import com.turbomanage.storm.entity.dao.SimpleEntityDao;
+import com.turbomanage.storm.entity.dao.SimpleEntityTable.Columns;
 import com.turbomanage.storm.exception.TooManyResultsException;
 
 public class DaoTestCase extends AndroidTestCase {
@@ -86,6 +90,32 @@ public class DaoTestCase extends AndroidTestCase {
 		}
 	}
 
+	public void testGetAll() {
+		dao.deleteAll();
+		List<SimpleEntity> entities = new ArrayList<SimpleEntity>();
+		for (int i = 0; i < 1200; i++) {
+			SimpleEntity e = new SimpleEntity();
+			e.setIntField(i);
+			entities.add(e);
+		}
+		dao.insertMany(entities);
+		List<Long> ids = new ArrayList<Long>();
+		for (int i = entities.size() - 1; i >= 0; i -= 2) {
+			ids.add(entities.get(i).getId());
+		}
+		ids.add(-1L); // no such row
+		ids.add(entities.get(1199).getId()); // duplicate
+		List<SimpleEntity> all = dao.getAll(ids);
+		assertEquals(600, all.size());
+		for (int i = 0; i < all.size(); i++) {
+			assertEquals(1199 - 2 * i, all.get(i).getIntField());
+		}
+		Map<Long, SimpleEntity> map = dao.getAllAsMap(Arrays.asList(entities.get(7).getId(), -1L));
+		assertEquals(1, map.size());
+		assertAllFieldsMatch(entities.get(7), map.get(entities.get(7).getId()));
+		assertEquals(0, dao.getAll(new ArrayList<Long>()).size());
+	}
+
 	public void testInsert() {
 		SimpleEntity newEntity = new SimpleEntity();
 		long id = dao.insert(newEntity);
@@ -108,6 +138,31 @@ public class DaoTestCase extends AndroidTestCase {
 		assertEquals(100, dao.listAll().size());
 	}
 
+	public void testInsertManyInChunks() {
+		dao.deleteAll();
+		List<SimpleEntity> testEntities = new ArrayList<SimpleEntity>();
+		for (int i = 0; i < 105; i++) {
+			SimpleEntity randomEntity = new SimpleEntity();
+			randomEntity.setLongField(new Random().nextLong());
+			testEntities.add(randomEntity);
+		}
+		long numInserted = dao.insertMany(testEntities, 10);
+		assertEquals(105, numInserted);
+		assertEquals(105, dao.listAll().size());
+		for (SimpleEntity e : testEntities) {
+			assertTrue(e.getId() > 0);
+		}
+	}
+
+	public void testInsertManyFailure() {
+		dao.deleteAll();
+		SimpleEntity existing = new SimpleEntity();
+		dao.insert(existing);
+		// duplicate ID fails the second insert
+		assertEquals(-1, dao.insertMany(Arrays.asList(new SimpleEntity(), existing)));
+		assertEquals(1, dao.listAll().size());
+	}
+
 	public void testInsertWithId() {
 		for (int i = 5000; i < 5010; i++) {
 			SimpleEntity newEntity = new SimpleEntity();
@@ -143,6 +198,47 @@ public class DaoTestCase extends AndroidTestCase {
 		assertAllFieldsMatch(newEntity, retrievedEntity);
 	}
 
+	public void testUpsert() {
+		SimpleEntity e = new SimpleEntity();
+		long id = dao.insert(e);
+		populateTestEntity(e);
+		assertEquals(id, dao.upsert(e));
+		assertAllFieldsMatch(e, dao.get(id));
+		// server-assigned ID
+		SimpleEntity remote = new SimpleEntity();
+		remote.setId(7000);
+		assertEquals(7000, dao.upsert(remote));
+		assertNotNull(dao.get(7000L));
+		// new entity is assigned an ID
+		assertTrue(dao.upsert(new SimpleEntity()) > 7000);
+	}
+
+	public void testUpsertMany() {
+		dao.deleteAll();
+		List<SimpleEntity> batch = new ArrayList<SimpleEntity>();
+		for (int i = 0; i < 10; i++) {
+			SimpleEntity e = new SimpleEntity();
+			e.setId(100 + i);
+			e.setIntField(i);
+			batch.add(e);
+		}
+		assertEquals(10, dao.upsertMany(batch));
+		for (SimpleEntity e : batch) {
+			e.setIntField(e.getIntField() + 1000);
+		}
+		// overlaps the first batch by 5
+		for (int i = 10; i < 15; i++) {
+			SimpleEntity e = new SimpleEntity();
+			e.setId(100 + i);
+			e.setIntField(1000 + i);
+			batch.add(e);
+		}
+		assertEquals(10, dao.upsertMany(batch.subList(5, 15)));
+		assertEquals(15, dao.load().count());
+		assertEquals(10, dao.load().ge(Columns.INTFIELD, 1000).count());
+		assertEquals(1014, dao.get(114L).getIntField());
+	}
+
 	public void testListAll() {
 		List<SimpleEntity> before = dao.listAll();
 		insertRandomEntities(5);
@@ -150,6 +246,49 @@ public class DaoTestCase extends AndroidTestCase {
 		assertEquals(5, after.size() - before.size());
 	}
 
+	public void testIterateAll() {
+		insertRandomEntities(5);
+		List<SimpleEntity> all = dao.listAll();
+		CloseableIterator<SimpleEntity> it = dao.iterateAll();
+		int i = 0;
+		for (SimpleEntity e : it) {
+			assertAllFieldsMatch(all.get(i++), e);
+		}
+		assertEquals(all.size(), i);
+		assertFalse(it.hasNext());
+	}
+
+	public void testIterateReusingInstance() {
+		insertRandomEntities(5);
+		List<SimpleEntity> all = dao.listAll();
+		SimpleEntity flyweight = new SimpleEntity();
+		CloseableIterator<SimpleEntity> it = dao.load().iterate(flyweight);
+		try {
+			for (int i = 0; i < 3; i++) {
+				SimpleEntity e = it.next();
+				assertSame(flyweight, e);
+				assertAllFieldsMatch(all.get(i), e);
+			}
+		} finally {
+			it.close();
+		}
+		assertFalse(it.hasNext());
+	}
+
+	public void testJournalMode() {
+		SQLiteDatabase db = TestDbFactory.getDatabaseHelper(ctx).getWritableDatabase();
+		assertTrue(db.isWriteAheadLoggingEnabled());
+		Cursor c = db.rawQuery("PRAGMA journal_mode", null);
+		assertTrue(c.moveToFirst());
+		assertEquals("wal", c.getString(0).toLowerCase());
+		c.close();
+		c = db.rawQuery("PRAGMA synchronous", null);
+		assertTrue(c.moveToFirst());
+		// NORMAL
+		assertEquals(1, c.getInt(0));
+		c.close();
+	}
+
 	public void testListByExample() {
 		String testName = "testListByExample";
 		insertTwoEntitiesHavingAnIdenticalStringField(testName);
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright 2012 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.turbomanage.storm.test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.test.AndroidTestCase;
+
+import com.turbomanage.storm.DatabaseHelper;
+import com.turbomanage.storm.EntityCache;
+import com.turbomanage.storm.TestDatabaseHelper;
+import com.turbomanage.storm.TestDbFactory;
+import com.turbomanage.storm.entity.UniqueEntity;
+import com.turbomanage.storm.entity.ValueEntity;
+import com.turbomanage.storm.entity.dao.UniqueEntityDao;
+import com.turbomanage.storm.entity.dao.ValueEntityDao;
+import com.turbomanage.storm.entity.dao.ValueEntityTable.Columns;
+
+public class EntityCacheTestCase extends AndroidTestCase {
+	private Context ctx;
+	private ValueEntityDao dao;
+	private EntityCache<ValueEntity> cache;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		ctx = getContext();
+		openDatabase();
+		dao = new ValueEntityDao(ctx);
+		cache = dao.getCache();
+		assertNotNull(cache);
+		assertEquals(0, cache.size());
+		cache.resetStats();
+	}
+
+	public void testGetHitsCache() {
+		ValueEntity e = new ValueEntity(21);
+		long id = dao.insert(e);
+		ValueEntity e1 = dao.get(id);
+		// the caller's instance isn't cached
+		assertNotSame(e, e1);
+		ValueEntity e2 = dao.get(id);
+		assertSame(e1, e2);
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		cache.clear();
+		dao.get(id);
+		assertEquals(2, cache.getMissCount());
+		assertSame(dao.get(id), dao.get(id));
+	}
+
+	public void testEviction() {
+		long[] ids = new long[4];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = dao.insert(new ValueEntity(i));
+			dao.get(ids[i]);
+		}
+		assertEquals(3, cache.size());
+		assertEquals(4, cache.getMissCount());
+		// least recently used was evicted
+		dao.get(ids[0]);
+		assertEquals(5, cache.getMissCount());
+	}
+
+	public void testStaleReadNotCached() {
+		long id = dao.insert(new ValueEntity(1));
+		ValueEntity stale = dao.load().eq(Columns._id, id).get();
+		// a write removes the entity while the row is being read
+		long version = cache.getVersion();
+		dao.delete(id);
+		cache.putIfUnchanged(id, stale, version);
+		assertEquals(0, cache.size());
+		assertNull(dao.get(id));
+	}
+
+	public void testTransactionReadNotCached() {
+		final long id = dao.insert(new ValueEntity(34));
+		final DatabaseHelper dbHelper = dao.getDbHelper();
+		try {
+			dbHelper.runInTransaction(new Callable<Void>() {
+				@Override
+				public Void call() {
+					ValueEntity copy = new ValueEntity(55);
+					copy.setId(id);
+					dao.update(copy);
+					assertEquals(55, dao.get(id).getIntValue());
+					assertEquals(0, cache.size());
+					throw new IllegalStateException("roll back");
+				}
+			});
+			fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		assertEquals(34, dao.get(id).getIntValue());
+	}
+
+	public void testWritesKeepCacheConsistent() {
+		ValueEntity e = new ValueEntity(34);
+		long id = dao.insert(e);
+		ValueEntity copy = new ValueEntity(55);
+		copy.setId(id);
+		assertEquals(1, dao.update(copy));
+		assertEquals(55, dao.get(id).getIntValue());
+		assertEquals(1, dao.delete(id));
+		assertNull(dao.get(id));
+		dao.insert(new ValueEntity(89));
+		dao.deleteAll();
+		assertEquals(0, cache.size());
+		dao.insert(new ValueEntity(144));
+		dao.load().delete();
+		assertEquals(0, cache.size());
+	}
+
+	public void testUpsertClearsReplacedRows() {
+		UniqueEntityDao uniqueDao = new UniqueEntityDao(ctx);
+		uniqueDao.deleteAll();
+		long oldId = uniqueDao.insert(new UniqueEntity("code"));
+		assertNotNull(uniqueDao.get(oldId));
+		// a new ID with the same code replaces the old row
+		UniqueEntity replacement = new UniqueEntity("code");
+		replacement.setId(oldId + 1);
+		assertEquals(oldId + 1, uniqueDao.upsert(replacement));
+		assertNull(uniqueDao.get(oldId));
+		assertEquals(1, uniqueDao.load().count());
+	}
+
+	public void testGetAllUsesCache() {
+		long id1 = dao.insert(new ValueEntity(1));
+		long id2 = dao.insert(new ValueEntity(2));
+		dao.get(id1);
+		cache.resetStats();
+		List<ValueEntity> all = dao.getAll(Arrays.asList(id1, id2));
+		assertEquals(2, all.size());
+		assertSame(dao.get(id1), all.get(0));
+		assertEquals(1, cache.getMissCount());
+		// fetched entities were cached
+		assertSame(all.get(1), dao.get(id2));
+	}
+
+	private void openDatabase() {
+		DatabaseHelper dbHelper = TestDbFactory.getDatabaseHelper(ctx);
+		SQLiteDatabase db = dbHelper.getReadableDatabase();
+		assertEquals(TestDatabaseHelper.DB_VERSION, db.getVersion());
+		// wipe database
+		dbHelper.onUpgrade(db, TestDatabaseHelper.DB_VERSION, TestDatabaseHelper.DB_VERSION);
+	}
+
+}
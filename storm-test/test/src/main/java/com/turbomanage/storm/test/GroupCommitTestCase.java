@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright 2012 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.turbomanage.storm.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteConstraintException;
+import android.database.sqlite.SQLiteDatabase;
+import android.test.AndroidTestCase;
+
+import com.turbomanage.storm.DatabaseHelper;
+import com.turbomanage.storm.GroupCommitWriter;
+import com.turbomanage.storm.TestDatabaseHelper;
+import com.turbomanage.storm.TestDbFactory;
+import com.turbomanage.storm.entity.SimpleEntity;
+import com.turbomanage.storm.entity.dao.SimpleEntityDao;
+
+public class GroupCommitTestCase extends AndroidTestCase {
+	private Context ctx;
+	private DatabaseHelper dbHelper;
+	private SimpleEntityDao dao;
+	private GroupCommitWriter writer;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		ctx = getContext();
+		dbHelper = TestDbFactory.getDatabaseHelper(ctx);
+		SQLiteDatabase db = dbHelper.getReadableDatabase();
+		assertEquals(TestDatabaseHelper.DB_VERSION, db.getVersion());
+		// wipe database
+		dbHelper.onUpgrade(db, TestDatabaseHelper.DB_VERSION, TestDatabaseHelper.DB_VERSION);
+		dao = new SimpleEntityDao(ctx);
+		writer = dbHelper.newGroupCommitWriter(50, 20);
+	}
+
+	public void testConcurrentWriters() throws Exception {
+		final List<Future<Long>> futures = new ArrayList<Future<Long>>();
+		Thread[] producers = new Thread[4];
+		for (int t = 0; t < producers.length; t++) {
+			producers[t] = new Thread() {
+				@Override
+				public void run() {
+					for (int i = 0; i < 100; i++) {
+						Future<Long> f = writer.insert(dao, new SimpleEntity());
+						synchronized (futures) {
+							futures.add(f);
+						}
+					}
+				}
+			};
+			producers[t].start();
+		}
+		for (Thread producer : producers) {
+			producer.join();
+		}
+		for (Future<Long> f : futures) {
+			assertTrue(f.get(10, TimeUnit.SECONDS) > 0);
+		}
+		assertEquals(400, dao.load().count());
+	}
+
+	public void testFailedWriteDoesNotAffectBatch() throws Exception {
+		SimpleEntity existing = new SimpleEntity();
+		dao.insert(existing);
+		SimpleEntity e1 = new SimpleEntity();
+		Future<Long> ok1 = writer.insert(dao, e1);
+		// duplicate ID
+		Future<Long> dup = writer.insert(dao, existing);
+		Future<Long> ok2 = writer.insert(dao, new SimpleEntity());
+		assertEquals(e1.getId(), (long) ok1.get(5, TimeUnit.SECONDS));
+		assertTrue(ok2.get(5, TimeUnit.SECONDS) > 0);
+		try {
+			dup.get(5, TimeUnit.SECONDS);
+			fail();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof SQLiteConstraintException);
+		}
+		assertEquals(3, dao.load().count());
+	}
+
+	public void testPartialWriteRolledBack() throws Exception {
+		Future<Void> partial = writer.submit(new Callable<Void>() {
+			@Override
+			public Void call() {
+				dao.insert(new SimpleEntity());
+				throw new IllegalStateException("after first statement");
+			}
+		});
+		Future<Long> ok = writer.insert(dao, new SimpleEntity());
+		assertTrue(ok.get(5, TimeUnit.SECONDS) > 0);
+		try {
+			partial.get(5, TimeUnit.SECONDS);
+			fail();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+		assertEquals(1, dao.load().count());
+	}
+
+	public void testFailedNestedTransactionFailsBatch() throws Exception {
+		final SimpleEntity existing = new SimpleEntity();
+		dao.insert(existing);
+		// hold the writer thread so that all three land in one batch
+		final CountDownLatch blocker = new CountDownLatch(1);
+		dbHelper.getWriteExecutor().execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					blocker.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		Future<Long> ok1 = writer.insert(dao, new SimpleEntity());
+		Future<Long> many = writer.submit(new Callable<Long>() {
+			@Override
+			public Long call() {
+				// duplicate ID fails inside insertMany's own transaction
+				return dao.insertMany(Arrays.asList(new SimpleEntity(), existing));
+			}
+		});
+		Future<Long> ok2 = writer.insert(dao, new SimpleEntity());
+		blocker.countDown();
+		for (Future<Long> f : Arrays.asList(ok1, many, ok2)) {
+			try {
+				f.get(5, TimeUnit.SECONDS);
+				fail();
+			} catch (ExecutionException e) {
+				assertNotNull(e.getCause());
+			}
+		}
+		assertEquals(1, dao.load().count());
+	}
+
+	public void testCompletesAfterDelay() throws Exception {
+		long start = System.nanoTime();
+		Future<Long> f = writer.insert(dao, new SimpleEntity());
+		assertTrue(f.get(5, TimeUnit.SECONDS) > 0);
+		// a lone write waits no longer than the delay plus the commit
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+		assertNotNull(dao.get(f.get()));
+	}
+
+}
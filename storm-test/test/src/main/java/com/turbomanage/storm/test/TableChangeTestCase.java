@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright 2012 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.turbomanage.storm.test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.test.AndroidTestCase;
+
+import com.turbomanage.storm.DatabaseHelper;
+import com.turbomanage.storm.SQLiteDao;
+import com.turbomanage.storm.TableChangeListener;
+import com.turbomanage.storm.TestDatabaseHelper;
+import com.turbomanage.storm.TestDbFactory;
+import com.turbomanage.storm.entity.SimpleEntity;
+import com.turbomanage.storm.entity.ValueEntity;
+import com.turbomanage.storm.entity.dao.SimpleEntityDao;
+import com.turbomanage.storm.entity.dao.ValueEntityDao;
+
+public class TableChangeTestCase extends AndroidTestCase {
+	private DatabaseHelper dbHelper;
+	private SimpleEntityDao simpleDao;
+	private ValueEntityDao valueDao;
+	private final List<Set<String>> events = new ArrayList<Set<String>>();
+	private final TableChangeListener listener = new TableChangeListener() {
+		@Override
+		public void onTablesChanged(Set<String> tableNames) {
+			events.add(tableNames);
+		}
+	};
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		Context ctx = getContext();
+		dbHelper = TestDbFactory.getDatabaseHelper(ctx);
+		SQLiteDatabase db = dbHelper.getReadableDatabase();
+		assertEquals(TestDatabaseHelper.DB_VERSION, db.getVersion());
+		// wipe database
+		dbHelper.onUpgrade(db, TestDatabaseHelper.DB_VERSION, TestDatabaseHelper.DB_VERSION);
+		simpleDao = new SimpleEntityDao(ctx);
+		valueDao = new ValueEntityDao(ctx);
+		dbHelper.addTableChangeListener(listener);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		dbHelper.removeTableChangeListener(listener);
+		super.tearDown();
+	}
+
+	public void testSingleWrites() {
+		SimpleEntity e = new SimpleEntity();
+		simpleDao.insert(e);
+		simpleDao.update(e);
+		assertEquals(0, valueDao.delete(1L));
+		simpleDao.delete(e.getId());
+		assertEquals(3, events.size());
+		for (Set<String> tables : events) {
+			assertEquals(tables(simpleDao), tables);
+		}
+	}
+
+	public void testCoalescedInTransaction() {
+		dbHelper.runInTransaction(new Callable<Void>() {
+			@Override
+			public Void call() {
+				simpleDao.insert(new SimpleEntity());
+				simpleDao.insert(new SimpleEntity());
+				valueDao.insert(new ValueEntity());
+				assertTrue(events.isEmpty());
+				return null;
+			}
+		});
+		assertEquals(1, events.size());
+		assertEquals(tables(simpleDao, valueDao), events.get(0));
+	}
+
+	public void testInsertManyPerChunk() {
+		List<SimpleEntity> many = new ArrayList<SimpleEntity>();
+		for (int i = 0; i < 10; i++) {
+			many.add(new SimpleEntity());
+		}
+		simpleDao.insertMany(many);
+		assertEquals(1, events.size());
+		events.clear();
+		for (SimpleEntity e : many) {
+			e.setId(0);
+		}
+		simpleDao.insertMany(many, 4);
+		assertEquals(3, events.size());
+	}
+
+	public void testRollbackNotPublished() {
+		try {
+			dbHelper.runInTransaction(new Callable<Void>() {
+				@Override
+				public Void call() {
+					simpleDao.insert(new SimpleEntity());
+					throw new IllegalStateException("abort");
+				}
+			});
+			fail("Expected IllegalStateException");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		assertTrue(events.isEmpty());
+		valueDao.insert(new ValueEntity());
+		assertEquals(1, events.size());
+		assertEquals(tables(valueDao), events.get(0));
+	}
+
+	public void testNestedRollbackNotPublished() {
+		dbHelper.runInTransaction(new Callable<Void>() {
+			@Override
+			public Void call() {
+				simpleDao.insert(new SimpleEntity());
+				try {
+					dbHelper.runInTransaction(new Callable<Void>() {
+						@Override
+						public Void call() {
+							valueDao.insert(new ValueEntity());
+							throw new IllegalStateException("inner");
+						}
+					});
+					fail("Expected IllegalStateException");
+				} catch (IllegalStateException e) {
+					// only the inner work is rolled back
+				}
+				return null;
+			}
+		});
+		assertEquals(1, events.size());
+		assertEquals(tables(simpleDao), events.get(0));
+	}
+
+	public void testRawTransactionNotPublished() {
+		SQLiteDatabase db = dbHelper.getWritableDatabase();
+		db.beginTransaction();
+		try {
+			simpleDao.insert(new SimpleEntity());
+		} finally {
+			db.endTransaction();
+		}
+		assertTrue(events.isEmpty());
+		valueDao.insert(new ValueEntity());
+		assertEquals(1, events.size());
+		assertEquals(tables(valueDao), events.get(0));
+	}
+
+	private Set<String> tables(SQLiteDao<?>... daos) {
+		Set<String> tables = new HashSet<String>();
+		for (SQLiteDao<?> dao : daos) {
+			tables.add(dao.getTableHelper().getTableName());
+		}
+		return tables;
+	}
+
+}
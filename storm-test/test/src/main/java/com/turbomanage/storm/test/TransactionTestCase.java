@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright 2012 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.turbomanage.storm.test;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.test.AndroidTestCase;
+
+import com.turbomanage.storm.DatabaseHelper;
+import com.turbomanage.storm.TestDatabaseHelper;
+import com.turbomanage.storm.TestDbFactory;
+import com.turbomanage.storm.entity.SimpleEntity;
+import com.turbomanage.storm.entity.ValueEntity;
+import com.turbomanage.storm.entity.dao.SimpleEntityDao;
+import com.turbomanage.storm.entity.dao.ValueEntityDao;
+import com.turbomanage.storm.exception.TransactionFailedException;
+
+public class TransactionTestCase extends AndroidTestCase {
+	private DatabaseHelper dbHelper;
+	private SimpleEntityDao simpleDao;
+	private ValueEntityDao valueDao;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		Context ctx = getContext();
+		dbHelper = TestDbFactory.getDatabaseHelper(ctx);
+		SQLiteDatabase db = dbHelper.getReadableDatabase();
+		assertEquals(TestDatabaseHelper.DB_VERSION, db.getVersion());
+		// wipe database
+		dbHelper.onUpgrade(db, TestDatabaseHelper.DB_VERSION, TestDatabaseHelper.DB_VERSION);
+		simpleDao = new SimpleEntityDao(ctx);
+		valueDao = new ValueEntityDao(ctx);
+	}
+
+	public void testCommitAcrossDaos() {
+		long id = dbHelper.runInTransaction(new Callable<Long>() {
+			@Override
+			public Long call() {
+				simpleDao.insert(new SimpleEntity());
+				return valueDao.insert(new ValueEntity());
+			}
+		});
+		assertTrue(id > 0);
+		assertEquals(1, simpleDao.listAll().size());
+		assertEquals(1, valueDao.listAll().size());
+	}
+
+	public void testRollback() {
+		try {
+			dbHelper.runInTransaction(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					simpleDao.insert(new SimpleEntity());
+					valueDao.insert(new ValueEntity());
+					throw new IOException("abort");
+				}
+			});
+			fail("Expected TransactionFailedException");
+		} catch (TransactionFailedException e) {
+			assertTrue(e.getCause() instanceof IOException);
+		}
+		assertEquals(0, simpleDao.listAll().size());
+		assertEquals(0, valueDao.listAll().size());
+	}
+
+	public void testNestedRollback() {
+		dbHelper.runInTransaction(new Callable<Void>() {
+			@Override
+			public Void call() {
+				simpleDao.insert(new SimpleEntity());
+				try {
+					dbHelper.runInTransaction(new Callable<Void>() {
+						@Override
+						public Void call() {
+							valueDao.insert(new ValueEntity());
+							throw new IllegalStateException("inner");
+						}
+					});
+					fail("Expected IllegalStateException");
+				} catch (IllegalStateException e) {
+					// only the inner work is rolled back
+				}
+				// ROLLBACK TO must not have ended the outer transaction
+				assertTrue(dbHelper.getWritableDatabase().inTransaction());
+				dbHelper.runInTransaction(new Callable<Long>() {
+					@Override
+					public Long call() {
+						return simpleDao.insert(new SimpleEntity());
+					}
+				});
+				return null;
+			}
+		});
+		assertEquals(2, simpleDao.listAll().size());
+		assertEquals(0, valueDao.listAll().size());
+	}
+
+}
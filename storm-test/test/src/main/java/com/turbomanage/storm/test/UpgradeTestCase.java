@@ -21,6 +21,7 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Random;
@@ -89,6 +90,53 @@ public class UpgradeTestCase extends AndroidTestCase {
 		}
 	}
 
+	public void testBinaryBackupAndRestore() {
+		dao.deleteAll();
+		persistRandomEntities(11);
+		SimpleEntity e = newTestEntity();
+		dao.insert(e);
+		dao.insert(new SimpleEntity()); // default
+		List<SimpleEntity> before = dao.listAll();
+		SQLiteDatabase db = dbHelper.getWritableDatabase();
+		assertTrue(dbHelper.backupAllTablesToBinary(ctx, db, null));
+		dbHelper.dropAndCreate(db);
+		assertEquals(0, dao.listAll().size());
+		dbHelper.restoreAllTablesFromBinary(ctx, db, null);
+		List<SimpleEntity> after = dao.listAll();
+		assertEquals(before.size(), after.size());
+		for (int i = 0; i < before.size(); i++) {
+			DaoTestCase.assertAllFieldsMatch(before.get(i), after.get(i));
+		}
+	}
+
+	public void testRecreateAndCopy() {
+		SQLiteDatabase db = dbHelper.getWritableDatabase();
+		// simulate an older schema with a missing, a nullable and an obsolete column
+		db.execSQL("DROP TABLE SimpleEntity");
+		db.execSQL("CREATE TABLE SimpleEntity(_id INTEGER PRIMARY KEY AUTOINCREMENT, "
+				+ "INTFIELD INTEGER, WSTRINGFIELD TEXT, OBSOLETE TEXT)");
+		db.execSQL("INSERT INTO SimpleEntity(INTFIELD,WSTRINGFIELD,OBSOLETE) VALUES (42,'copied','x')");
+		db.execSQL("INSERT INTO SimpleEntity(INTFIELD,WSTRINGFIELD) VALUES (NULL,NULL)");
+		db.beginTransaction();
+		try {
+			dbHelper.recreateAndCopy(db);
+			db.setTransactionSuccessful();
+		} finally {
+			db.endTransaction();
+		}
+		List<SimpleEntity> all = dao.listAll();
+		assertEquals(2, all.size());
+		assertEquals(1, all.get(0).getId());
+		assertEquals(42, all.get(0).getIntField());
+		assertEquals("copied", all.get(0).getwStringField());
+		assertEquals(0, all.get(1).getIntField());
+		assertNull(all.get(1).getwStringField());
+		assertEquals(new SimpleEntity().getLongField(), all.get(1).getLongField());
+		assertEquals(2, listIndexes(db).size());
+		// AUTOINCREMENT continues after the copied ids
+		assertEquals(3, dao.insert(new SimpleEntity()));
+	}
+
 	/**
 	 * This test exercises the same code as {@link CsvTableWriter#dumpToCsv}.
 	 * When upgrading the db version, any new table will throw this exception.
@@ -168,6 +216,38 @@ public class UpgradeTestCase extends AndroidTestCase {
 		DaoTestCase.assertAllFieldsMatch(newEntity, listAll.get(0));
 	}
 
+	public void testSyncIndexes() {
+		SQLiteDatabase db = dbHelper.getWritableDatabase();
+		List<String> indexes = listIndexes(db);
+		assertEquals(2, indexes.size());
+		assertTrue(indexes.contains("IDX_SimpleEntity_INTFIELD"));
+		assertTrue(indexes.contains("IDX_SIMPLE_STRING_LONG"));
+		// simulate a user index, a stale generated index and a changed definition
+		db.execSQL("CREATE INDEX USER_SHORTFIELD ON SimpleEntity(SHORTFIELD)");
+		db.execSQL("CREATE INDEX IDX_SimpleEntity_LONGFIELD ON SimpleEntity(LONGFIELD)");
+		db.execSQL("DROP INDEX IDX_SimpleEntity_INTFIELD");
+		db.execSQL("CREATE INDEX IDX_SimpleEntity_INTFIELD ON SimpleEntity(INTFIELD DESC)");
+		dbHelper.upgrade(db, TestDatabaseHelper.DB_VERSION, TestDatabaseHelper.DB_VERSION);
+		indexes = listIndexes(db);
+		assertEquals(3, indexes.size());
+		assertTrue(indexes.contains("USER_SHORTFIELD"));
+		assertFalse(indexes.contains("IDX_SimpleEntity_LONGFIELD"));
+		Cursor c = db.rawQuery("SELECT sql FROM sqlite_master WHERE name='IDX_SimpleEntity_INTFIELD'", null);
+		assertTrue(c.moveToFirst());
+		assertFalse(c.getString(0).contains("DESC"));
+		c.close();
+	}
+
+	private List<String> listIndexes(SQLiteDatabase db) {
+		List<String> names = new ArrayList<String>();
+		Cursor c = db.rawQuery("SELECT name FROM sqlite_master WHERE type='index' AND sql IS NOT NULL AND tbl_name='SimpleEntity'", null);
+		while (c.moveToNext()) {
+			names.add(c.getString(0));
+		}
+		c.close();
+		return names;
+	}
+
 	private SimpleEntity newTestEntity() {
 		SimpleEntity e = new SimpleEntity();
 		e.setBlobField("CAFEBABE".getBytes());